@@ -24,20 +24,92 @@
  */
 package com.ewm;
 
+import com.ewm.store.TileStorage;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.Range;
 
-@ConfigGroup("extendedworldmap")
+@ConfigGroup(ExtendedWorldMapConfig.GROUP)
 public interface ExtendedWorldMapConfig extends Config
 {
+	String GROUP = "extendedworldmap";
+	String CACHE_BUDGET_KEY = "cacheBudgetMB";
+	String COMPRESSED_CACHE_KEY = "compressedCacheMB";
+	String DISK_CACHE_KEY = "diskCacheMB";
+	String ACCELERATED_TILES_KEY = "acceleratedTiles";
+	String DECODE_THREADS_KEY = "decodeThreads";
+
+	@Range(
+		min = 0,
+		max = 8192
+	)
 	@ConfigItem(
-		keyName = "cacheBudgetMB",
+		keyName = CACHE_BUDGET_KEY,
 		name = "Cache budget (MB)",
-		description = "RAM budget for map region tiles. Trade RAM usage for smoother viewing."
+		description = "RAM budget for map region tiles. Trade RAM usage for smoother viewing. 0 sizes it automatically from the free heap. Values below 32 are raised to 32."
 	)
 	default int cacheBudgetMB()
 	{
 		return 512;
 	}
+
+	@ConfigItem(
+		keyName = "tileStorage",
+		name = "Tile storage",
+		description = "How cached tiles are held in memory. 16-bit and palette storage fit two to four times as many tiles in the same budget. Applies to tiles loaded after the change."
+	)
+	default TileStorage tileStorage()
+	{
+		return TileStorage.FULL;
+	}
+
+	@ConfigItem(
+		keyName = ACCELERATED_TILES_KEY,
+		name = "Accelerated tiles",
+		description = "Keeps cached tiles in the screen's native format so they can be drawn from video memory. Overrides tile storage and uses full color. Ignored when the display has no hardware acceleration."
+	)
+	default boolean acceleratedTiles()
+	{
+		return false;
+	}
+
+	@Range(
+		max = 2048
+	)
+	@ConfigItem(
+		keyName = COMPRESSED_CACHE_KEY,
+		name = "Compressed cache (MB)",
+		description = "Off-heap memory kept for compressed tiles, so tiles dropped from the cache above are rebuilt without re-reading the map file. 0 disables it."
+	)
+	default int compressedCacheMB()
+	{
+		return 64;
+	}
+
+	@Range(
+		max = 16384
+	)
+	@ConfigItem(
+		keyName = DISK_CACHE_KEY,
+		name = "Disk tile cache (MB)",
+		description = "Disk space for decoded tiles kept between sessions, so revisited areas skip image decoding. The space is reserved in one file up front. 0 disables it and deletes what was stored."
+	)
+	default int diskCacheMB()
+	{
+		return 0;
+	}
+
+	@Range(
+		max = 32
+	)
+	@ConfigItem(
+		keyName = DECODE_THREADS_KEY,
+		name = "Tile decode threads",
+		description = "Threads used to decode map tiles. 0 uses half of the available processors."
+	)
+	default int decodeThreads()
+	{
+		return 0;
+	}
 }
@@ -37,7 +37,9 @@ import javax.swing.SwingUtilities;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
+import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
 import net.runelite.api.gameval.InterfaceID;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
@@ -99,7 +101,9 @@ public class ExtendedWorldMapPlugin extends Plugin
 
 	private MapDock mapDock;
 
-	private MapPanel mapPanel;
+	private volatile MapPanel mapPanel;
+
+	private WorldPoint lastPlayerLocation;
 
 	private static void detachFromParentIfNeeded(MapPanel panel)
 	{
@@ -292,9 +296,64 @@ public class ExtendedWorldMapPlugin extends Plugin
 		}
 	}
 
+	@Subscribe
+	private void onGameTick(GameTick tick)
+	{
+		MapPanel panel = mapPanel;
+		if (panel == null || client.getLocalPlayer() == null)
+		{
+			return;
+		}
+
+		WorldPoint wp = client.getLocalPlayer().getWorldLocation();
+		if (wp.equals(lastPlayerLocation))
+		{
+			return;
+		}
+		lastPlayerLocation = wp;
+		SwingUtilities.invokeLater(() -> panel.onPlayerMoved(wp));
+	}
+
 	@Subscribe
 	private void onConfigChanged(ConfigChanged event)
 	{
+		if (ExtendedWorldMapConfig.GROUP.equals(event.getGroup()))
+		{
+			if (ExtendedWorldMapConfig.CACHE_BUDGET_KEY.equals(event.getKey())
+				|| ExtendedWorldMapConfig.COMPRESSED_CACHE_KEY.equals(event.getKey())
+				|| ExtendedWorldMapConfig.DISK_CACHE_KEY.equals(event.getKey()))
+			{
+				SwingUtilities.invokeLater(() ->
+				{
+					if (mapPanel != null)
+					{
+						mapPanel.updateCacheBudget();
+					}
+				});
+			}
+			else if (ExtendedWorldMapConfig.ACCELERATED_TILES_KEY.equals(event.getKey()))
+			{
+				SwingUtilities.invokeLater(() ->
+				{
+					if (mapPanel != null)
+					{
+						mapPanel.updateAcceleration();
+					}
+				});
+			}
+			else if (ExtendedWorldMapConfig.DECODE_THREADS_KEY.equals(event.getKey()))
+			{
+				SwingUtilities.invokeLater(() ->
+				{
+					if (mapPanel != null)
+					{
+						mapPanel.updateDecodeThreads();
+					}
+				});
+			}
+			return;
+		}
+
 		if (!GROUND_MARKER_GROUP.equals(event.getGroup()))
 		{
 			return;
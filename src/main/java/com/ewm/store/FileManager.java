@@ -118,6 +118,15 @@ public final class FileManager
 		return new File(getMapDirectory(), MAP_FILE_NAME);
 	}
 
+	public String getMapVersion()
+	{
+		LocalMeta meta = readLocalMeta();
+		String etag = meta != null && meta.etag != null ? meta.etag.trim() : "";
+		String lastMod = meta != null && meta.lastModified != null ? meta.lastModified.trim() : "";
+		long metaSize = meta != null ? meta.sizeBytes : -1L;
+		return etag + "|" + lastMod + "|" + metaSize + "|" + getMapFile().length();
+	}
+
 	private File getMetaFile()
 	{
 		return new File(getMapDirectory(), MAP_FILE_NAME + ".meta");
@@ -368,6 +377,8 @@ public final class FileManager
 					throw last;
 				}
 
+				TileDiskCache.invalidate(dir);
+
 				long finalSize = target.length();
 				long metaSize = (total > 0) ? total : finalSize;
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+final class FrequencySketch
+{
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final long[] SEEDS = {
+		0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+	};
+
+	private final long[] table;
+	private final int mask;
+	private final int sampleSize;
+	private int additions;
+
+	FrequencySketch(int expectedEntries)
+	{
+		int size = Integer.highestOneBit(Math.max(64, expectedEntries) - 1) << 1;
+		this.table = new long[size];
+		this.mask = size - 1;
+		this.sampleSize = size * 10;
+	}
+
+	int frequency(long key)
+	{
+		int min = 15;
+		for (int i = 0; i < 4; i++)
+		{
+			long h = hash(key, i);
+			min = Math.min(min, (int) ((table[index(h)] >>> shift(h, i)) & 0xFL));
+		}
+		return min;
+	}
+
+	void increment(long key)
+	{
+		boolean added = false;
+		for (int i = 0; i < 4; i++)
+		{
+			long h = hash(key, i);
+			int idx = index(h);
+			int shift = shift(h, i);
+			long v = table[idx];
+			if (((v >>> shift) & 0xFL) != 0xFL)
+			{
+				table[idx] = v + (1L << shift);
+				added = true;
+			}
+		}
+
+		if (added && ++additions >= sampleSize)
+		{
+			reset();
+		}
+	}
+
+	private void reset()
+	{
+		for (int i = 0; i < table.length; i++)
+		{
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		additions = additions >>> 1;
+	}
+
+	private static long hash(long key, int i)
+	{
+		long h = (key + SEEDS[i]) * SEEDS[i];
+		return h ^ (h >>> 29);
+	}
+
+	private int index(long h)
+	{
+		return (int) h & mask;
+	}
+
+	// each long holds 16 counters, hash i uses its own 16-bit lane
+	private static int shift(long h, int i)
+	{
+		return (int) (((h >>> 32) & 3L) << 2) + (i << 4);
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public final class HeapPressureMonitor implements NotificationListener, AutoCloseable
+{
+	private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+	private static final double HIGH_WATER = 0.85;
+	private static final double LOW_WATER = 0.65;
+	private static final double KEEP_FRACTION = 0.5;
+	private static final long FLOOR_BYTES = 32L * 1024L * 1024L;
+	private static final long SHED_COOLDOWN_MS = 5000L;
+	private static final long RELAX_INTERVAL_MS = 2000L;
+
+	private final ImageCache cache;
+	private final MemoryPoolMXBean pool;
+	private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+	// 0 if another owner set the JVM-wide threshold, which is then left alone
+	private long installedThreshold = 0L;
+
+	private long lastShed = 0L;
+	private long lastRelax = 0L;
+
+	public HeapPressureMonitor(ImageCache cache)
+	{
+		this.cache = cache;
+		this.pool = tenuredPool();
+
+		if (pool != null && pool.isCollectionUsageThresholdSupported() && pool.getCollectionUsageThreshold() == 0L)
+		{
+			long max = pool.getUsage().getMax();
+			if (max > 0L)
+			{
+				installedThreshold = (long) (max * HIGH_WATER);
+				pool.setCollectionUsageThreshold(installedThreshold);
+			}
+		}
+
+		subscribe(ManagementFactory.getMemoryMXBean());
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			subscribe(gc);
+		}
+	}
+
+	private static MemoryPoolMXBean tenuredPool()
+	{
+		MemoryPoolMXBean best = null;
+		for (MemoryPoolMXBean p : ManagementFactory.getMemoryPoolMXBeans())
+		{
+			if (p.getType() != MemoryType.HEAP || !p.isCollectionUsageThresholdSupported())
+			{
+				continue;
+			}
+			if (best == null || p.getUsage().getMax() > best.getUsage().getMax())
+			{
+				best = p;
+			}
+		}
+		return best;
+	}
+
+	private void subscribe(Object bean)
+	{
+		if (bean instanceof NotificationEmitter)
+		{
+			NotificationEmitter emitter = (NotificationEmitter) bean;
+			emitter.addNotificationListener(this, null, null);
+			emitters.add(emitter);
+		}
+	}
+
+	@Override
+	public void handleNotification(Notification n, Object handback)
+	{
+		String type = n.getType();
+		if (!GC_NOTIFICATION.equals(type) && !MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type))
+		{
+			return;
+		}
+		check(System.currentTimeMillis());
+	}
+
+	private synchronized void check(long now)
+	{
+		double ratio = occupancy();
+		if (ratio > HIGH_WATER)
+		{
+			if (now - lastShed < SHED_COOLDOWN_MS)
+			{
+				return;
+			}
+			lastShed = now;
+			long before = cache.liveBytes();
+			cache.shed(KEEP_FRACTION, FLOOR_BYTES);
+			log.debug("Heap at {}% after GC, tile cache shed {} KB -> {} KB",
+				Math.round(ratio * 100), before / 1024, cache.liveBytes() / 1024);
+		}
+		else if (ratio < LOW_WATER && now - lastRelax >= RELAX_INTERVAL_MS)
+		{
+			lastRelax = now;
+			if (cache.relax(cache.budget() / 10L) && lastShed != 0L)
+			{
+				lastShed = 0L;
+				log.debug("Heap at {}% after GC, tile cache back to its full budget", Math.round(ratio * 100));
+			}
+		}
+	}
+
+	private double occupancy()
+	{
+		if (pool == null)
+		{
+			Runtime rt = Runtime.getRuntime();
+			return (double) (rt.totalMemory() - rt.freeMemory()) / rt.maxMemory();
+		}
+
+		MemoryUsage usage = pool.getCollectionUsage();
+		if (usage == null)
+		{
+			usage = pool.getUsage();
+		}
+		long max = usage.getMax() > 0L ? usage.getMax() : Runtime.getRuntime().maxMemory();
+		return (double) usage.getUsed() / max;
+	}
+
+	@Override
+	public void close()
+	{
+		for (NotificationEmitter emitter : emitters)
+		{
+			try
+			{
+				emitter.removeNotificationListener(this);
+			}
+			catch (ListenerNotFoundException ignore)
+			{
+			}
+		}
+		emitters.clear();
+
+		if (installedThreshold != 0L && pool.getCollectionUsageThreshold() == installedThreshold)
+		{
+			pool.setCollectionUsageThreshold(0L);
+		}
+		installedThreshold = 0L;
+	}
+}
@@ -25,23 +25,58 @@
 package com.ewm.store;
 
 import java.awt.image.BufferedImage;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.awt.image.DataBuffer;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
-public final class ImageCache extends LinkedHashMap<String, BufferedImage>
+public final class ImageCache
 {
-	private final long budgetBytes;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int SAMPLE_SIZE = 8;
+	private static final int SHED_SAMPLE_SIZE = 32;
+	private static final int FULL_LOD = 1;
+
+	private static final Entry TOMBSTONE = new Entry(0L, null, 0L, 0L, 0L);
+
+	private long budgetBytes;
+	private long pressureCap = Long.MAX_VALUE;
+	private final EvictionPolicy policy;
+	private final RasterPool recycler;
+
+	private volatile Table table = new Table(INITIAL_CAPACITY);
+
+	// keys holding each resident image; charged once, released with its last key
+	private final IdentityHashMap<BufferedImage, int[]> holders = new IdentityHashMap<>();
+
 	private long liveBytes = 0L;
+	private int size = 0;
+	private int tombstones = 0;
+	private int hand = 0;
+	private long evictions = 0L;
+
+	private volatile long tick = 0L;
+
+	private volatile long frame = 0L;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
 
 	public ImageCache(long budgetBytes)
 	{
-		super(512, 0.75f, true);
-		this.budgetBytes = Math.max(64L * 1024L * 1024L, budgetBytes);
+		this(budgetBytes, new LruPolicy());
 	}
 
-	private static String key(int lod, int plane, int tx, int ty)
+	public ImageCache(long budgetBytes, EvictionPolicy policy)
 	{
-		return lod + ":" + plane + ":" + tx + ":" + ty;
+		this(budgetBytes, policy, null);
+	}
+
+	public ImageCache(long budgetBytes, EvictionPolicy policy, RasterPool recycler)
+	{
+		this.budgetBytes = Math.max(0L, budgetBytes);
+		this.policy = policy;
+		this.recycler = recycler;
 	}
 
 	private static long approx(BufferedImage bi)
@@ -50,47 +85,447 @@ public final class ImageCache extends LinkedHashMap<String, BufferedImage>
 		{
 			return 0;
 		}
-		return (long) bi.getWidth() * (long) bi.getHeight() * 4L;
+		DataBuffer db = bi.getRaster().getDataBuffer();
+		return (long) db.getSize() * db.getNumBanks() * DataBuffer.getDataTypeSize(db.getDataType()) / 8L;
+	}
+
+	private static int hash(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	public BufferedImage get(int lod, int plane, int tx, int ty)
+	{
+		return get(TileKey.pack(lod, plane, tx, ty));
+	}
+
+	// lock-free, safe to call from the EDT while decoders insert
+	public BufferedImage get(long key)
+	{
+		Entry e = find(key);
+		if (e == null)
+		{
+			misses.increment();
+			return null;
+		}
+
+		long f = frame;
+		if (e.lastFrame < f - 1)
+		{
+			// not looked up in the previous frame, so this is a new visit rather than a repaint
+			policy.onAccess(key);
+		}
+		e.lastFrame = f;
+
+		long now = tick;
+		if (e.lastAccess != now)
+		{
+			e.lastAccess = now;
+		}
+		hits.increment();
+		return e.image;
+	}
+
+	public void nextFrame()
+	{
+		frame = frame + 1;
+		if (recycler != null)
+		{
+			recycler.nextFrame();
+		}
+	}
+
+	public BufferedImage peek(long key)
+	{
+		Entry e = find(key);
+		return e != null ? e.image : null;
+	}
+
+	private Entry find(long key)
+	{
+		Table t = table;
+		int mask = t.mask;
+		int i = hash(key) & mask;
+		for (int probes = 0; probes <= mask; probes++)
+		{
+			Entry e = t.slots.get(i);
+			if (e == null)
+			{
+				return null;
+			}
+			if (e != TOMBSTONE && e.key == key)
+			{
+				return e;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
 	}
 
-	public synchronized BufferedImage get(int lod, int plane, int tx, int ty)
+	public boolean put(int lod, int plane, int tx, int ty, BufferedImage img)
 	{
-		return super.get(key(lod, plane, tx, ty));
+		return put(TileKey.pack(lod, plane, tx, ty), img);
 	}
 
-	public synchronized void put(int lod, int plane, int tx, int ty, BufferedImage img)
+	public synchronized boolean put(long key, BufferedImage img)
 	{
-		BufferedImage prev = super.put(key(lod, plane, tx, ty), img);
-		if (prev != null)
+		if (img == null)
+		{
+			remove(key);
+			return false;
+		}
+
+		long now = ++tick;
+		policy.onAccess(key);
+
+		if ((size + tombstones + 1) * 2 > table.slots.length())
+		{
+			rehash(size + 1);
+		}
+
+		Table t = table;
+		int mask = t.mask;
+		int i = hash(key) & mask;
+		int free = -1;
+		for (int probes = 0; probes <= mask; probes++)
 		{
-			liveBytes -= approx(prev);
+			Entry e = t.slots.get(i);
+			if (e == null)
+			{
+				break;
+			}
+			if (e == TOMBSTONE)
+			{
+				if (free < 0)
+				{
+					free = i;
+				}
+			}
+			else if (e.key == key)
+			{
+				Entry n = new Entry(key, img, approx(img), now, frame);
+				t.slots.set(i, n);
+				if (e.image != img)
+				{
+					hold(n);
+					if (release(e))
+					{
+						recycle(e);
+					}
+				}
+				trimToBudget();
+				return true;
+			}
+			i = (i + 1) & mask;
 		}
-		if (img != null)
+
+		long bytes = holders.containsKey(img) ? 0L : approx(img);
+		if (bytes > 0L && liveBytes + bytes > effectiveBudget() && size > 0)
+		{
+			int victim = sampleVictim(t, now, SAMPLE_SIZE, false);
+			if (victim >= 0)
+			{
+				Entry v = t.slots.get(victim);
+				if (!policy.admit(key, v.key, v.lastAccess, now))
+				{
+					return false;
+				}
+			}
+		}
+
+		if (free >= 0)
+		{
+			tombstones--;
+			i = free;
+		}
+
+		Entry n = new Entry(key, img, approx(img), now, frame);
+		t.slots.set(i, n);
+		hold(n);
+		size++;
+		trimToBudget();
+		return true;
+	}
+
+	// one step under the monitor so the image cannot be evicted and recycled in between
+	public synchronized boolean putShared(long source, long key)
+	{
+		Entry e = find(source);
+		return e != null && put(key, e.image);
+	}
+
+	public synchronized BufferedImage remove(long key)
+	{
+		Table t = table;
+		int mask = t.mask;
+		int i = hash(key) & mask;
+		for (int probes = 0; probes <= mask; probes++)
 		{
-			liveBytes += approx(img);
+			Entry e = t.slots.get(i);
+			if (e == null)
+			{
+				return null;
+			}
+			if (e != TOMBSTONE && e.key == key)
+			{
+				evictSlot(t, i, e);
+				return e.image;
+			}
+			i = (i + 1) & mask;
 		}
+		return null;
+	}
+
+	public synchronized void clear()
+	{
+		table = new Table(INITIAL_CAPACITY);
+		holders.clear();
+		liveBytes = 0L;
+		size = 0;
+		tombstones = 0;
+		hand = 0;
+	}
+
+	public synchronized void setBudget(long budgetBytes)
+	{
+		this.budgetBytes = Math.max(0L, budgetBytes);
 		trimToBudget();
 	}
 
+	public synchronized long budget()
+	{
+		return budgetBytes;
+	}
+
+	public synchronized long effectiveBudget()
+	{
+		return Math.min(budgetBytes, pressureCap);
+	}
+
+	public synchronized void shed(double keepFraction, long floorBytes)
+	{
+		pressureCap = Math.max(floorBytes, (long) (liveBytes * keepFraction));
+
+		Table t = table;
+		long now = tick;
+		while (liveBytes > effectiveBudget() && size > 0)
+		{
+			int victim = sampleVictim(t, now, SHED_SAMPLE_SIZE, true);
+			if (victim < 0)
+			{
+				break;
+			}
+			evictSlot(t, victim, t.slots.get(victim));
+			evictions++;
+		}
+
+		if (recycler != null)
+		{
+			recycler.clear();
+		}
+	}
+
+	public synchronized boolean relax(long stepBytes)
+	{
+		if (pressureCap == Long.MAX_VALUE)
+		{
+			return true;
+		}
+		pressureCap += stepBytes;
+		if (pressureCap >= budgetBytes)
+		{
+			pressureCap = Long.MAX_VALUE;
+			return true;
+		}
+		return false;
+	}
+
+	public long hits()
+	{
+		return hits.sum();
+	}
+
+	public long misses()
+	{
+		return misses.sum();
+	}
+
+	public double hitRate()
+	{
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0L ? 0.0 : (double) h / total;
+	}
+
+	public synchronized long evictions()
+	{
+		return evictions;
+	}
+
+	public synchronized int size()
+	{
+		return size;
+	}
+
+	public synchronized long liveBytes()
+	{
+		return liveBytes;
+	}
+
 	private void trimToBudget()
 	{
-		while (liveBytes > budgetBytes && !isEmpty())
+		Table t = table;
+		long now = tick;
+		while (liveBytes > effectiveBudget() && size > 0)
 		{
-			Map.Entry<String, BufferedImage> eldest = entrySet().iterator().next();
-			BufferedImage img = eldest.getValue();
-			liveBytes -= approx(img);
-			remove(eldest.getKey());
+			int victim = sampleVictim(t, now, SAMPLE_SIZE, false);
+			if (victim < 0)
+			{
+				break;
+			}
+			Entry e = t.slots.get(victim);
+			evictions++;
+			if (evictSlot(t, victim, e))
+			{
+				recycle(e);
+			}
 		}
 	}
 
-	@Override
-	public synchronized BufferedImage remove(Object key)
+	private int sampleVictim(Table t, long now, int samples, boolean fullFirst)
 	{
-		BufferedImage prev = super.remove(key);
-		if (prev != null)
+		int best = -1;
+		boolean bestFull = false;
+		double bestScore = Double.MAX_VALUE;
+		int seen = 0;
+		for (int probes = 0; probes <= t.mask && seen < samples; probes++)
+		{
+			hand = (hand + 1) & t.mask;
+			Entry e = t.slots.get(hand);
+			if (e == null || e == TOMBSTONE)
+			{
+				continue;
+			}
+			seen++;
+
+			boolean full = fullFirst && TileKey.lod(e.key) == FULL_LOD;
+			if (bestFull && !full)
+			{
+				continue;
+			}
+
+			double score = policy.retention(e.key, e.lastAccess, now);
+			if (score < bestScore || (full && !bestFull))
+			{
+				bestScore = score;
+				bestFull = full;
+				best = hand;
+			}
+		}
+		return best;
+	}
+
+	private void recycle(Entry e)
+	{
+		if (recycler != null)
+		{
+			recycler.release(e.image);
+		}
+	}
+
+	private void hold(Entry e)
+	{
+		int[] count = holders.get(e.image);
+		if (count != null)
+		{
+			count[0]++;
+			return;
+		}
+		holders.put(e.image, new int[]{1});
+		liveBytes += e.bytes;
+	}
+
+	private boolean release(Entry e)
+	{
+		int[] count = holders.get(e.image);
+		if (count != null && --count[0] > 0)
+		{
+			return false;
+		}
+		holders.remove(e.image);
+		liveBytes -= e.bytes;
+		return true;
+	}
+
+	private boolean evictSlot(Table t, int i, Entry e)
+	{
+		t.slots.set(i, TOMBSTONE);
+		size--;
+		tombstones++;
+		return release(e);
+	}
+
+	private void rehash(int minLive)
+	{
+		int capacity = INITIAL_CAPACITY;
+		while (capacity < minLive * 4)
+		{
+			capacity <<= 1;
+		}
+
+		Table old = table;
+		Table next = new Table(capacity);
+		for (int i = 0; i < old.slots.length(); i++)
+		{
+			Entry e = old.slots.get(i);
+			if (e == null || e == TOMBSTONE)
+			{
+				continue;
+			}
+			int j = hash(e.key) & next.mask;
+			while (next.slots.get(j) != null)
+			{
+				j = (j + 1) & next.mask;
+			}
+			next.slots.set(j, e);
+		}
+
+		table = next;
+		tombstones = 0;
+		hand = 0;
+	}
+
+	private static final class Table
+	{
+		final AtomicReferenceArray<Entry> slots;
+		final int mask;
+
+		Table(int capacity)
+		{
+			this.slots = new AtomicReferenceArray<>(capacity);
+			this.mask = capacity - 1;
+		}
+	}
+
+	private static final class Entry
+	{
+		final long key;
+		final BufferedImage image;
+		final long bytes;
+
+		// written racily by readers, a lost update only makes the entry look older
+		long lastAccess;
+
+		long lastFrame;
+
+		Entry(long key, BufferedImage image, long bytes, long lastAccess, long lastFrame)
 		{
-			liveBytes -= approx(prev);
+			this.key = key;
+			this.image = image;
+			this.bytes = bytes;
+			this.lastAccess = lastAccess;
+			this.lastFrame = lastFrame;
 		}
-		return prev;
 	}
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LatencyHistogram
+{
+	private static final int BUCKETS = 32;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder totalMicros = new LongAdder();
+	private final LongAdder samples = new LongAdder();
+
+	public void record(long nanos)
+	{
+		long micros = Math.max(0L, nanos / 1_000L);
+		int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+		counts.incrementAndGet(bucket);
+		totalMicros.add(micros);
+		samples.increment();
+	}
+
+	public long count()
+	{
+		return samples.sum();
+	}
+
+	public double meanMicros()
+	{
+		long n = samples.sum();
+		return n == 0L ? 0.0 : (double) totalMicros.sum() / n;
+	}
+
+	public long percentileMicros(double p)
+	{
+		long[] snapshot = new long[BUCKETS];
+		long n = 0L;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			snapshot[i] = counts.get(i);
+			n += snapshot[i];
+		}
+		if (n == 0L)
+		{
+			return 0L;
+		}
+
+		long rank = (long) Math.ceil(p * n);
+		long seen = 0L;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			seen += snapshot[i];
+			if (seen >= rank)
+			{
+				return i == 0 ? 0L : 1L << i;
+			}
+		}
+		return 1L << (BUCKETS - 1);
+	}
+}
@@ -27,33 +27,51 @@ package com.ewm.store;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.MemoryCacheImageInputStream;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public final class MapReader implements Closeable
 {
 	private static final byte[] MAGIC = new byte[]{
 		(byte) 'A', (byte) 'T', (byte) 'L', (byte) 'S', (byte) 'v', (byte) '1', (byte) 0x00, (byte) 0x00
 	};
 
+	// a single MappedByteBuffer is int-indexed, larger sections use positional reads
+	private static final long MAX_MAPPED_BYTES = Integer.MAX_VALUE;
+
 	private final RandomAccessFile raf;
+	private final FileChannel channel;
 	private final Header header;
-	private final Map<String, TileEntry> index = new ConcurrentHashMap<>();
+	private final TileIndex index;
+
+	private final MappedByteBuffer mapped;
+	private final ReadMode readMode;
+
+	private final LatencyHistogram ioTime = new LatencyHistogram();
+	private final LatencyHistogram decodeTime = new LatencyHistogram();
 
-	private MapReader(RandomAccessFile raf) throws IOException
+	private MapReader(RandomAccessFile raf, ReadMode preferred) throws IOException
 	{
 		this.raf = raf;
+		this.channel = raf.getChannel();
 		this.header = readHeader();
-		readIndex();
+		this.index = readIndex();
+
+		this.mapped = preferred == ReadMode.MAPPED ? tryMapData() : null;
+		this.readMode = mapped != null ? ReadMode.MAPPED : ReadMode.CHANNEL;
 	}
 
 	private static void require(boolean cond, String msg) throws IOException
@@ -66,12 +84,26 @@ public final class MapReader implements Closeable
 
 	public static MapReader open(File file) throws IOException
 	{
-		return new MapReader(new RandomAccessFile(file, "r"));
+		return open(file, ReadMode.preferred());
 	}
 
-	private static String key(int lod, int z, int tx, int ty)
+	public static MapReader open(File file, ReadMode preferred) throws IOException
 	{
-		return lod + ":" + z + ":" + tx + ":" + ty;
+		long start = System.nanoTime();
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try
+		{
+			MapReader reader = new MapReader(raf, preferred);
+			log.debug("Opened map {} in {} ms ({} tiles, {} sharing a payload, {} reads)",
+				file.getName(), (System.nanoTime() - start) / 1_000_000L, reader.index.count(),
+				reader.index.sharedAtBuild(), reader.readMode);
+			return reader;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			raf.close();
+			throw e;
+		}
 	}
 
 	public Header header()
@@ -79,6 +111,28 @@ public final class MapReader implements Closeable
 		return header;
 	}
 
+	public ReadMode readMode()
+	{
+		return readMode;
+	}
+
+	private MappedByteBuffer tryMapData()
+	{
+		try
+		{
+			long size = channel.size() - header.dataOffset;
+			if (size <= 0 || size > MAX_MAPPED_BYTES)
+			{
+				return null;
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, header.dataOffset, size);
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+	}
+
 	private Header readHeader() throws IOException
 	{
 		raf.seek(0);
@@ -128,27 +182,51 @@ public final class MapReader implements Closeable
 		return new Header(version, srcW, srcH, tile, lods, tilesXFull, tilesYFull, numLayers, indexOff, dataOff);
 	}
 
-	private void readIndex() throws IOException
+	private TileIndex readIndex() throws IOException
 	{
-		raf.seek(header.indexOffset);
+		long start = System.nanoTime();
 
 		final int entrySize = 36;
-		long totalEntries = (header.dataOffset - header.indexOffset) / entrySize;
+		long indexBytes = header.dataOffset - header.indexOffset;
+		require(indexBytes <= Integer.MAX_VALUE, "index too large");
 
-		for (long i = 0; i < totalEntries; i++)
+		ByteBuffer buf = ByteBuffer.allocate((int) indexBytes).order(ByteOrder.LITTLE_ENDIAN);
+		while (buf.hasRemaining())
+		{
+			int r = channel.read(buf, header.indexOffset + buf.position());
+			if (r < 0)
+			{
+				throw new EOFException("Map: truncated index");
+			}
+		}
+		buf.flip();
+
+		int n = (int) (indexBytes / entrySize);
+		int[] lod = new int[n];
+		int[] z = new int[n];
+		int[] tx = new int[n];
+		int[] ty = new int[n];
+		int[] w = new int[n];
+		int[] h = new int[n];
+		long[] rel = new long[n];
+		int[] len = new int[n];
+
+		for (int i = 0; i < n; i++)
 		{
-			int lod = readU32();
-			int z = readU32();
-			int tx = readU32();
-			int ty = readU32();
-			int w = readU32();
-			int h = readU32();
-			long rel = readU64();
-			int len = readU32();
-
-			TileEntry e = new TileEntry(lod, z, tx, ty, w, h, rel, len);
-			index.put(key(lod, z, tx, ty), e);
+			lod[i] = buf.getInt();
+			z[i] = buf.getInt();
+			tx[i] = buf.getInt();
+			ty[i] = buf.getInt();
+			w[i] = buf.getInt();
+			h[i] = buf.getInt();
+			rel[i] = buf.getLong();
+			len[i] = buf.getInt();
 		}
+
+		TileIndex idx = TileIndex.build(header, n, lod, z, tx, ty, w, h, rel, len);
+		log.debug("Map index: {} entries ({} KB) parsed in {} us",
+			n, indexBytes / 1024L, (System.nanoTime() - start) / 1_000L);
+		return idx;
 	}
 
 	private int readU32() throws IOException
@@ -165,33 +243,91 @@ public final class MapReader implements Closeable
 		return ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN).getLong();
 	}
 
-	public TileEntry getEntry(int lod, int z, int tx, int ty)
+	TileIndex index()
+	{
+		return index;
+	}
+
+	public boolean hasTile(int lod, int z, int tx, int ty)
 	{
-		return index.get(key(lod, z, tx, ty));
+		return index.contains(lod, z, tx, ty);
+	}
+
+	public long contentKey(int lod, int z, int tx, int ty)
+	{
+		int slot = index.find(lod, z, tx, ty);
+		if (slot < 0)
+		{
+			return TileKey.pack(lod, z, tx, ty);
+		}
+
+		int c = index.canonical(slot);
+		return c == slot ? TileKey.pack(lod, z, tx, ty) : index.keyOf(c);
 	}
 
 	public BufferedImage readTileImage(int lod, int z, int tx, int ty) throws IOException
 	{
-		TileEntry e = getEntry(lod, z, tx, ty);
-		if (e == null)
+		return readTileImage(lod, z, tx, ty, null);
+	}
+
+	public BufferedImage readTileImage(int lod, int z, int tx, int ty, PayloadCache payloads) throws IOException
+	{
+		return readTileImage(lod, z, tx, ty, payloads, null);
+	}
+
+	public BufferedImage readTileImage(int lod, int z, int tx, int ty, PayloadCache payloads, RasterPool pool) throws IOException
+	{
+		int slot = index.find(lod, z, tx, ty);
+		if (slot < 0)
 		{
 			return null;
 		}
 
-		byte[] buf = new byte[e.length];
-		synchronized (raf)
+		long key = TileKey.pack(lod, z, tx, ty);
+		byte[] buf = payloads != null ? payloads.get(key) : null;
+		if (buf == null)
 		{
-			raf.seek(header.dataOffset + e.relOffset);
-			raf.readFully(buf);
+			long start = System.nanoTime();
+			buf = readPayload(slot);
+			ioTime.record(System.nanoTime() - start);
+			if (payloads != null)
+			{
+				payloads.put(key, buf);
+			}
 		}
 
+		long start = System.nanoTime();
+		BufferedImage img = decode(buf, pool);
+		decodeTime.record(System.nanoTime() - start);
+		return img;
+	}
+
+	public LatencyHistogram ioTime()
+	{
+		return ioTime;
+	}
+
+	public LatencyHistogram decodeTime()
+	{
+		return decodeTime;
+	}
+
+	private static BufferedImage decode(byte[] buf, RasterPool pool) throws IOException
+	{
 		try (ImageInputStream iis = new MemoryCacheImageInputStream(new ByteArrayInputStream(buf)))
 		{
 			ImageReader reader = ImageIO.getImageReadersByFormatName("png").next();
 			try
 			{
 				reader.setInput(iis, true, true);
-				return reader.read(0);
+				if (pool == null)
+				{
+					return reader.read(0);
+				}
+
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setDestination(pool.acquire(reader.getImageTypes(0).next(), reader.getWidth(0), reader.getHeight(0)));
+				return reader.read(0, param);
 			}
 			finally
 			{
@@ -200,12 +336,56 @@ public final class MapReader implements Closeable
 		}
 	}
 
+	byte[] readPayload(int slot) throws IOException
+	{
+		long rel = index.offset(slot);
+		byte[] buf = new byte[index.length(slot)];
+
+		MappedByteBuffer m = mapped;
+		if (m != null)
+		{
+			if (rel < 0 || rel + buf.length > m.capacity())
+			{
+				throw new IOException("Map: tile payload out of bounds");
+			}
+			ByteBuffer src = m.duplicate();
+			src.position((int) rel);
+			src.get(buf);
+			return buf;
+		}
+
+		ByteBuffer dst = ByteBuffer.wrap(buf);
+		long pos = header.dataOffset + rel;
+		while (dst.hasRemaining())
+		{
+			int n = channel.read(dst, pos + dst.position());
+			if (n < 0)
+			{
+				throw new EOFException("Map: truncated tile payload");
+			}
+		}
+		return buf;
+	}
+
 	@Override
 	public void close() throws IOException
 	{
 		raf.close();
 	}
 
+	public enum ReadMode
+	{
+		MAPPED,
+		CHANNEL;
+
+		// Windows keeps a mapped file locked until GC, which would break atlas updates
+		public static ReadMode preferred()
+		{
+			String os = System.getProperty("os.name", "");
+			return os.toLowerCase().startsWith("windows") ? CHANNEL : MAPPED;
+		}
+	}
+
 	public static final class Header
 	{
 		public final int version;
@@ -244,28 +424,4 @@ public final class MapReader implements Closeable
 			this.dataOffset = dataOffset;
 		}
 	}
-
-	public static final class TileEntry
-	{
-		public final int lod;
-		public final int z;
-		public final int tx;
-		public final int ty;
-		public final int imgW;
-		public final int imgH;
-		public final long relOffset;
-		public final int length;
-
-		TileEntry(int lod, int z, int tx, int ty, int imgW, int imgH, long relOffset, int length)
-		{
-			this.lod = lod;
-			this.z = z;
-			this.tx = tx;
-			this.ty = ty;
-			this.imgW = imgW;
-			this.imgH = imgH;
-			this.relOffset = relOffset;
-			this.length = length;
-		}
-	}
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public final class PayloadCache
+{
+	private static final int BLOCK_BYTES = 4096;
+	private static final int SLAB_BYTES = 64 * 1024 * 1024;
+	private static final int BLOCKS_PER_SLAB = SLAB_BYTES / BLOCK_BYTES;
+
+	private static final class Slot
+	{
+		final int[] blocks;
+		final int length;
+
+		Slot(int[] blocks, int length)
+		{
+			this.blocks = blocks;
+			this.length = length;
+		}
+	}
+
+	private final LinkedHashMap<Long, Slot> entries = new LinkedHashMap<>(256, 0.75f, true);
+	private final List<ByteBuffer> slabs = new ArrayList<>();
+
+	private long budgetBytes;
+	private int blockLimit;
+	private int blocksCarved = 0;
+	private int[] free;
+	private int freeCount = 0;
+	private long liveBytes = 0L;
+
+	private long hits = 0L;
+	private long misses = 0L;
+
+	public PayloadCache(long budgetBytes)
+	{
+		reset(budgetBytes);
+	}
+
+	public synchronized byte[] get(long key)
+	{
+		Slot slot = entries.get(key);
+		if (slot == null)
+		{
+			misses++;
+			return null;
+		}
+		hits++;
+
+		byte[] out = new byte[slot.length];
+		for (int i = 0, off = 0; off < slot.length; i++, off += BLOCK_BYTES)
+		{
+			ByteBuffer slab = block(slot.blocks[i]);
+			slab.get(out, off, Math.min(BLOCK_BYTES, slot.length - off));
+		}
+		return out;
+	}
+
+	public synchronized void put(long key, byte[] payload)
+	{
+		int needed = payload == null ? 0 : (payload.length + BLOCK_BYTES - 1) / BLOCK_BYTES;
+		if (needed == 0 || needed > blockLimit)
+		{
+			return;
+		}
+
+		release(entries.remove(key));
+		Iterator<Slot> lru = entries.values().iterator();
+		while (available() < needed && lru.hasNext())
+		{
+			release(lru.next());
+			lru.remove();
+		}
+
+		int[] blocks = new int[needed];
+		for (int i = 0; i < needed; i++)
+		{
+			blocks[i] = allocateBlock();
+			ByteBuffer slab = block(blocks[i]);
+			int off = i * BLOCK_BYTES;
+			slab.put(payload, off, Math.min(BLOCK_BYTES, payload.length - off));
+		}
+
+		entries.put(key, new Slot(blocks, payload.length));
+		liveBytes += payload.length;
+	}
+
+	public synchronized void clear()
+	{
+		entries.clear();
+		liveBytes = 0L;
+		freeCount = 0;
+		for (int b = 0; b < blocksCarved; b++)
+		{
+			free[freeCount++] = b;
+		}
+	}
+
+	// shrinking starts over so slabs past the new budget are not kept alive
+	public synchronized void setBudget(long budgetBytes)
+	{
+		budgetBytes = Math.max(0L, budgetBytes);
+		if (budgetBytes == this.budgetBytes)
+		{
+			return;
+		}
+
+		int limit = blockLimit(budgetBytes);
+		boolean lastSlabFull = slabs.isEmpty() || slabs.get(slabs.size() - 1).capacity() == SLAB_BYTES;
+		if (limit >= blocksCarved && lastSlabFull)
+		{
+			int[] grown = new int[limit];
+			System.arraycopy(free, 0, grown, 0, freeCount);
+			free = grown;
+			blockLimit = limit;
+			this.budgetBytes = budgetBytes;
+		}
+		else
+		{
+			reset(budgetBytes);
+		}
+	}
+
+	public synchronized long budget()
+	{
+		return budgetBytes;
+	}
+
+	public synchronized long liveBytes()
+	{
+		return liveBytes;
+	}
+
+	public synchronized long reservedBytes()
+	{
+		long total = 0L;
+		for (ByteBuffer slab : slabs)
+		{
+			total += slab.capacity();
+		}
+		return total;
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	public synchronized long hits()
+	{
+		return hits;
+	}
+
+	public synchronized long misses()
+	{
+		return misses;
+	}
+
+	public synchronized double hitRate()
+	{
+		long total = hits + misses;
+		return total == 0L ? 0.0 : (double) hits / total;
+	}
+
+	private void reset(long budgetBytes)
+	{
+		this.budgetBytes = Math.max(0L, budgetBytes);
+		blockLimit = blockLimit(this.budgetBytes);
+		entries.clear();
+		slabs.clear();
+		blocksCarved = 0;
+		free = new int[blockLimit];
+		freeCount = 0;
+		liveBytes = 0L;
+	}
+
+	private static int blockLimit(long budgetBytes)
+	{
+		return (int) Math.min(Integer.MAX_VALUE, budgetBytes / BLOCK_BYTES);
+	}
+
+	private int available()
+	{
+		return freeCount + (blockLimit - blocksCarved);
+	}
+
+	private int allocateBlock()
+	{
+		if (freeCount > 0)
+		{
+			return free[--freeCount];
+		}
+
+		int b = blocksCarved++;
+		if (b % BLOCKS_PER_SLAB == 0)
+		{
+			int blocks = Math.min(BLOCKS_PER_SLAB, blockLimit - b);
+			slabs.add(ByteBuffer.allocateDirect(blocks * BLOCK_BYTES));
+		}
+		return b;
+	}
+
+	private void release(Slot slot)
+	{
+		if (slot == null)
+		{
+			return;
+		}
+		for (int b : slot.blocks)
+		{
+			free[freeCount++] = b;
+		}
+		liveBytes -= slot.length;
+	}
+
+	private ByteBuffer block(int b)
+	{
+		ByteBuffer slab = slabs.get(b / BLOCKS_PER_SLAB);
+		slab.clear().position((b % BLOCKS_PER_SLAB) * BLOCK_BYTES);
+		return slab;
+	}
+}
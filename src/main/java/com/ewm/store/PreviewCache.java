@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public final class PreviewCache
+{
+	private static final byte[] MAGIC = new byte[]{
+		(byte) 'E', (byte) 'W', (byte) 'M', (byte) 'P', (byte) 'R', (byte) 'V', (byte) '0', (byte) '2'
+	};
+
+	private static final int MAX_KEY_BYTES = 1024;
+
+	private static final int[] RGB_MASKS = {0xFF0000, 0xFF00, 0xFF};
+	private static final DirectColorModel RGB = new DirectColorModel(24, RGB_MASKS[0], RGB_MASKS[1], RGB_MASKS[2]);
+
+	private final File dir;
+	private final String version;
+
+	public PreviewCache(File dir, String version)
+	{
+		this.dir = dir;
+		this.version = version;
+	}
+
+	private File fileFor(int plane)
+	{
+		return new File(dir, FileManager.MAP_FILE_NAME + ".preview" + plane);
+	}
+
+	@Nullable
+	public BufferedImage[] load(int plane, int tilesX, int tilesY)
+	{
+		File f = fileFor(plane);
+		if (!f.isFile())
+		{
+			return null;
+		}
+
+		try (RandomAccessFile raf = new RandomAccessFile(f, "r"))
+		{
+			FileChannel ch = raf.getChannel();
+			ByteBuffer buf;
+			if (MapReader.ReadMode.preferred() == MapReader.ReadMode.MAPPED)
+			{
+				buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+			}
+			else
+			{
+				buf = ByteBuffer.allocate((int) ch.size());
+				while (buf.hasRemaining())
+				{
+					if (ch.read(buf, buf.position()) < 0)
+					{
+						return null;
+					}
+				}
+				buf.flip();
+			}
+
+			byte[] magic = new byte[MAGIC.length];
+			if (buf.remaining() < MAGIC.length + 4)
+			{
+				return null;
+			}
+			buf.get(magic);
+			if (!Arrays.equals(magic, MAGIC))
+			{
+				return null;
+			}
+
+			int keyLength = buf.getInt();
+			if (keyLength < 0 || keyLength > MAX_KEY_BYTES || keyLength + 8 > buf.remaining())
+			{
+				return null;
+			}
+			byte[] key = new byte[keyLength];
+			buf.get(key);
+			if (!version.equals(new String(key, StandardCharsets.UTF_8))
+				|| buf.getInt() != tilesX
+				|| buf.getInt() != tilesY)
+			{
+				return null;
+			}
+
+			int n = tilesX * tilesY;
+			if ((long) n * 2 * Short.BYTES > buf.remaining())
+			{
+				return null;
+			}
+			short[] sizes = new short[n * 2];
+			buf.asShortBuffer().get(sizes);
+			buf.position(align4(buf.position() + sizes.length * Short.BYTES));
+
+			IntBuffer pixels = buf.asIntBuffer();
+			BufferedImage[] grid = new BufferedImage[n];
+			for (int i = 0; i < n; i++)
+			{
+				int w = sizes[i * 2];
+				int h = sizes[i * 2 + 1];
+				if (w <= 0 || h <= 0)
+				{
+					continue;
+				}
+				if (w * h > pixels.remaining())
+				{
+					return null;
+				}
+
+				int[] px = new int[w * h];
+				pixels.get(px);
+				grid[i] = wrap(px, w, h);
+			}
+			return grid;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.debug("Ignoring unreadable preview cache {}", f.getName(), e);
+			return null;
+		}
+	}
+
+	public void save(int plane, BufferedImage[] grid, int tilesX, int tilesY)
+	{
+		File target = fileFor(plane);
+		File temp = new File(dir, target.getName() + ".part");
+
+		try (FileChannel ch = FileChannel.open(temp.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+		{
+			byte[] key = version.getBytes(StandardCharsets.UTF_8);
+			int n = tilesX * tilesY;
+			int headerBytes = align4(MAGIC.length + 4 + key.length + 8 + n * 2 * Short.BYTES);
+
+			ByteBuffer head = ByteBuffer.allocate(headerBytes);
+			head.put(MAGIC);
+			head.putInt(key.length);
+			head.put(key);
+			head.putInt(tilesX);
+			head.putInt(tilesY);
+			for (int i = 0; i < n; i++)
+			{
+				BufferedImage bi = grid[i];
+				head.putShort((short) (bi == null ? 0 : bi.getWidth()));
+				head.putShort((short) (bi == null ? 0 : bi.getHeight()));
+			}
+			head.position(headerBytes);
+			head.flip();
+			writeFully(ch, head);
+
+			ByteBuffer body = null;
+			for (BufferedImage bi : grid)
+			{
+				if (bi == null)
+				{
+					continue;
+				}
+
+				int w = bi.getWidth();
+				int h = bi.getHeight();
+				if (body == null || body.capacity() < w * h * 4)
+				{
+					body = ByteBuffer.allocate(w * h * 4);
+				}
+				body.clear();
+				body.asIntBuffer().put(pixels(bi));
+				body.limit(w * h * 4);
+				writeFully(ch, body);
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.debug("Failed to write preview cache {}", target.getName(), e);
+			deleteQuietly(temp);
+			return;
+		}
+
+		try
+		{
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e)
+		{
+			log.debug("Failed to replace preview cache {}", target.getName(), e);
+			deleteQuietly(temp);
+		}
+	}
+
+	private static int[] pixels(BufferedImage bi)
+	{
+		int w = bi.getWidth();
+		int h = bi.getHeight();
+		if (bi.getType() == BufferedImage.TYPE_INT_RGB)
+		{
+			return (int[]) bi.getRaster().getDataElements(0, 0, w, h, null);
+		}
+		return bi.getRGB(0, 0, w, h, null, 0, w);
+	}
+
+	private static BufferedImage wrap(int[] px, int w, int h)
+	{
+		DataBufferInt db = new DataBufferInt(px, px.length);
+		WritableRaster raster = Raster.createPackedRaster(db, w, h, w, RGB_MASKS, null);
+		return new BufferedImage(RGB, raster, false, null);
+	}
+
+	private static int align4(int v)
+	{
+		return (v + 3) & ~3;
+	}
+
+	private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException
+	{
+		while (buf.hasRemaining())
+		{
+			ch.write(buf);
+		}
+	}
+
+	private static void deleteQuietly(File f)
+	{
+		try
+		{
+			Files.deleteIfExists(f.toPath());
+		}
+		catch (IOException ignore)
+		{
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.imageio.ImageTypeSpecifier;
+
+/**
+ * Images come back out only once {@link #QUARANTINE_FRAMES} more paints have started, so no paint
+ * can still be drawing them. Indexed images are never pooled, their palette belongs to one PNG.
+ */
+public final class RasterPool
+{
+	private static final long QUARANTINE_FRAMES = 2L;
+
+	private final Map<Long, ArrayDeque<Pooled>> buckets = new HashMap<>();
+
+	private long maxBytes;
+	private long pooledBytes = 0L;
+	private long frame = 0L;
+
+	private long acquires = 0L;
+	private long reuses = 0L;
+
+	public RasterPool(long maxBytes)
+	{
+		this.maxBytes = Math.max(0L, maxBytes);
+	}
+
+	private static long bucket(int type, int w, int h)
+	{
+		return ((long) type << 48) | ((long) (w & 0xFFFFFF) << 24) | (h & 0xFFFFFF);
+	}
+
+	private static boolean poolable(int type)
+	{
+		return type != BufferedImage.TYPE_CUSTOM
+			&& type != BufferedImage.TYPE_BYTE_INDEXED
+			&& type != BufferedImage.TYPE_BYTE_BINARY;
+	}
+
+	private static long bytesOf(BufferedImage bi)
+	{
+		return (long) bi.getWidth() * bi.getHeight() * bi.getColorModel().getPixelSize() / 8L;
+	}
+
+	@Nullable
+	public BufferedImage acquire(ImageTypeSpecifier spec, int w, int h)
+	{
+		return acquire(spec.getBufferedImageType(), w, h);
+	}
+
+	@Nullable
+	public synchronized BufferedImage acquire(int type, int w, int h)
+	{
+		acquires++;
+
+		if (!poolable(type))
+		{
+			return null;
+		}
+
+		ArrayDeque<Pooled> q = buckets.get(bucket(type, w, h));
+		if (q == null || q.isEmpty() || frame - q.peekFirst().releasedFrame < QUARANTINE_FRAMES)
+		{
+			return null;
+		}
+
+		BufferedImage bi = q.pollFirst().image;
+		pooledBytes -= bytesOf(bi);
+		reuses++;
+		return bi;
+	}
+
+	public synchronized void release(BufferedImage bi)
+	{
+		if (bi == null || !poolable(bi.getType()))
+		{
+			return;
+		}
+
+		long bytes = bytesOf(bi);
+		if (pooledBytes + bytes > maxBytes)
+		{
+			return;
+		}
+
+		buckets.computeIfAbsent(bucket(bi.getType(), bi.getWidth(), bi.getHeight()), k -> new ArrayDeque<>())
+			.addLast(new Pooled(bi, frame));
+		pooledBytes += bytes;
+	}
+
+	public synchronized void nextFrame()
+	{
+		frame++;
+	}
+
+	public synchronized void clear()
+	{
+		buckets.clear();
+		pooledBytes = 0L;
+	}
+
+	public synchronized void setMaxBytes(long maxBytes)
+	{
+		this.maxBytes = Math.max(0L, maxBytes);
+		if (pooledBytes > this.maxBytes)
+		{
+			clear();
+		}
+	}
+
+	public synchronized long pooledBytes()
+	{
+		return pooledBytes;
+	}
+
+	public synchronized long acquires()
+	{
+		return acquires;
+	}
+
+	public synchronized long reuses()
+	{
+		return reuses;
+	}
+
+	public synchronized double reuseRatio()
+	{
+		return acquires == 0L ? 0.0 : (double) reuses / acquires;
+	}
+
+	private static final class Pooled
+	{
+		final BufferedImage image;
+		final long releasedFrame;
+
+		Pooled(BufferedImage image, long releasedFrame)
+		{
+			this.image = image;
+			this.releasedFrame = releasedFrame;
+		}
+	}
+}
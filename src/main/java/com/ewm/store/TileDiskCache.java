@@ -0,0 +1,690 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public final class TileDiskCache implements AutoCloseable
+{
+	public static final String DIR_NAME = "tiles";
+
+	private static final String VERSION_FILE = "version";
+	private static final String STORE_FILE = "tiles.store";
+
+	private static final byte[] MAGIC = new byte[]{
+		(byte) 'E', (byte) 'W', (byte) 'M', (byte) 'T', (byte) 'I', (byte) 'L', (byte) '0', (byte) '2'
+	};
+
+	private static final int SLOT_BYTES = 256 * 256 * 4;
+	private static final int MAX_SLOTS = 65536;
+	private static final int SLOTS_PER_SEGMENT = 1024;
+
+	// key, width, height, flags; a slot is only valid once its pixels are in
+	private static final int HEADER_BYTES = 16;
+	private static final int FLAG_VALID = 1;
+	private static final int FLAG_ALPHA = 2;
+
+	private static final long HEADERS_AT = 16L;
+	private static final long DATA_AT = 2L * 1024L * 1024L;
+
+	private static final int[] RGB_MASKS = {0xFF0000, 0xFF00, 0xFF};
+	private static final int[] ARGB_MASKS = {0xFF0000, 0xFF00, 0xFF, 0xFF000000};
+	private static final DirectColorModel RGB = new DirectColorModel(24, RGB_MASKS[0], RGB_MASKS[1], RGB_MASKS[2]);
+	private static final DirectColorModel ARGB = new DirectColorModel(32, ARGB_MASKS[0], ARGB_MASKS[1], ARGB_MASKS[2], ARGB_MASKS[3]);
+
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+	private final File dir;
+	private final boolean mapped;
+
+	private final LinkedHashMap<Long, Integer> slots = new LinkedHashMap<>(1024, 0.75f, true);
+
+	// bumped when a slot is taken for writing, so reads outside the lock can validate
+	private final long[] stamps = new long[MAX_SLOTS];
+
+	// slots being written outside the lock, in neither the table nor the free list
+	private final boolean[] writing = new boolean[MAX_SLOTS];
+
+	private long budgetBytes;
+	private int slotCount = 0;
+	private int[] free = new int[0];
+	private int freeCount = 0;
+	private long storedBytes = 0L;
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private ByteBuffer headers;
+	private ByteBuffer[] segments;
+
+	public TileDiskCache(File mapDir, String version, long budgetBytes)
+	{
+		this.dir = new File(mapDir, DIR_NAME);
+		this.mapped = MapReader.ReadMode.preferred() == MapReader.ReadMode.MAPPED;
+
+		if (!version.equals(readVersion()))
+		{
+			invalidate(mapDir);
+			writeVersion(version);
+		}
+		setBudget(budgetBytes);
+	}
+
+	public static void invalidate(File mapDir)
+	{
+		File d = new File(mapDir, DIR_NAME);
+		File[] files = d.listFiles();
+		if (files == null)
+		{
+			return;
+		}
+		for (File f : files)
+		{
+			deleteQuietly(f);
+		}
+		log.debug("Cleared decoded tile disk cache");
+	}
+
+	@Nullable
+	public BufferedImage load(int lod, int plane, int tx, int ty)
+	{
+		long key = TileKey.pack(lod, plane, tx, ty);
+		FileChannel ch;
+		ByteBuffer seg;
+		int slot;
+		int w;
+		int h;
+		boolean alpha;
+		long stamp;
+		synchronized (this)
+		{
+			Integer s = slots.get(key);
+			if (s == null)
+			{
+				return null;
+			}
+
+			slot = s;
+			int at = slot * HEADER_BYTES;
+			w = headers.getShort(at + 8);
+			h = headers.getShort(at + 10);
+			int flags = headers.getInt(at + 12);
+			if (headers.getLong(at) != key || (flags & FLAG_VALID) == 0 || w <= 0 || h <= 0 || w * h * 4 > SLOT_BYTES)
+			{
+				drop(key, slot);
+				return null;
+			}
+			alpha = (flags & FLAG_ALPHA) != 0;
+			stamp = stamps[slot];
+			ch = channel;
+			try
+			{
+				seg = mapped ? segment(slot) : null;
+			}
+			catch (IOException | RuntimeException e)
+			{
+				log.debug("Ignoring unreadable cached tile in slot {}", slot, e);
+				drop(key, slot);
+				return null;
+			}
+		}
+
+		// copied outside the lock; the stamp shows whether the slot was reused meanwhile
+		try
+		{
+			int[] px = new int[w * h];
+			readPixels(ch, seg, slot, px);
+			synchronized (this)
+			{
+				return channel == ch && stamps[slot] == stamp ? wrap(px, w, h, alpha) : null;
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.debug("Ignoring unreadable cached tile in slot {}", slot, e);
+			synchronized (this)
+			{
+				if (channel == ch && stamps[slot] == stamp)
+				{
+					drop(key, slot);
+				}
+			}
+			return null;
+		}
+	}
+
+	public void save(int lod, int plane, int tx, int ty, BufferedImage img)
+	{
+		if (img == null)
+		{
+			return;
+		}
+
+		int w = img.getWidth();
+		int h = img.getHeight();
+		if ((long) w * h * 4L > SLOT_BYTES)
+		{
+			return;
+		}
+
+		long key = TileKey.pack(lod, plane, tx, ty);
+		FileChannel ch;
+		ByteBuffer seg;
+		int slot;
+		long stamp;
+		synchronized (this)
+		{
+			if (channel == null)
+			{
+				return;
+			}
+
+			Integer existing = slots.remove(key);
+			if (existing != null)
+			{
+				slot = existing;
+				storedBytes -= SLOT_BYTES;
+			}
+			else if (freeCount > 0)
+			{
+				slot = free[--freeCount];
+			}
+			else
+			{
+				Iterator<Map.Entry<Long, Integer>> eldest = slots.entrySet().iterator();
+				if (!eldest.hasNext())
+				{
+					return;
+				}
+				slot = eldest.next().getValue();
+				eldest.remove();
+				storedBytes -= SLOT_BYTES;
+			}
+
+			stamps[slot]++;
+			ch = channel;
+			try
+			{
+				writeHeader(slot, 0L, 0, 0, 0);
+				seg = mapped ? segment(slot) : null;
+			}
+			catch (IOException | RuntimeException e)
+			{
+				log.debug("Failed to write cached tile to slot {}", slot, e);
+				release(slot);
+				return;
+			}
+			writing[slot] = true;
+		}
+
+		boolean written;
+		try
+		{
+			writePixels(ch, seg, slot, img);
+			written = true;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.debug("Failed to write cached tile to slot {}", slot, e);
+			written = false;
+		}
+
+		synchronized (this)
+		{
+			if (channel != ch)
+			{
+				return;
+			}
+			writing[slot] = false;
+			if (slot >= slotCount)
+			{
+				return;
+			}
+			if (!written)
+			{
+				release(slot);
+				return;
+			}
+
+			try
+			{
+				writeHeader(slot, key, w, h, FLAG_VALID | (img.getColorModel().hasAlpha() ? FLAG_ALPHA : 0));
+			}
+			catch (IOException | RuntimeException e)
+			{
+				log.debug("Failed to write cached tile to slot {}", slot, e);
+				release(slot);
+				return;
+			}
+
+			// another thread may have stored the same tile while this one was writing
+			Integer previous = slots.put(key, slot);
+			storedBytes += SLOT_BYTES;
+			if (previous != null)
+			{
+				storedBytes -= SLOT_BYTES;
+				stamps[previous]++;
+				release(previous);
+			}
+		}
+	}
+
+	public synchronized void setBudget(long budgetBytes)
+	{
+		this.budgetBytes = Math.max(0L, budgetBytes);
+		int count = (int) Math.min(MAX_SLOTS, this.budgetBytes / SLOT_BYTES);
+
+		if (count == 0)
+		{
+			close();
+			deleteQuietly(new File(dir, STORE_FILE));
+			return;
+		}
+
+		try
+		{
+			if (channel == null)
+			{
+				open(count);
+			}
+			else if (count != slotCount)
+			{
+				resize(count);
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.debug("Decoded tile disk cache unavailable", e);
+			close();
+		}
+	}
+
+	public synchronized long diskBytes()
+	{
+		return storedBytes;
+	}
+
+	@Override
+	public synchronized void close()
+	{
+		slots.clear();
+		free = new int[0];
+		freeCount = 0;
+		slotCount = 0;
+		storedBytes = 0L;
+		headers = null;
+		segments = null;
+		channel = null;
+		if (file != null)
+		{
+			try
+			{
+				file.close();
+			}
+			catch (IOException ignore)
+			{
+			}
+			file = null;
+		}
+	}
+
+	private void open(int count) throws IOException
+	{
+		Files.createDirectories(dir.toPath());
+		file = new RandomAccessFile(new File(dir, STORE_FILE), "rw");
+		channel = file.getChannel();
+
+		byte[] magic = new byte[MAGIC.length];
+		boolean fresh = channel.size() < DATA_AT
+			|| channel.read(ByteBuffer.wrap(magic), 0L) != MAGIC.length
+			|| !Arrays.equals(magic, MAGIC);
+		if (fresh)
+		{
+			channel.truncate(0L);
+			channel.write(ByteBuffer.wrap(MAGIC), 0L);
+		}
+		file.setLength(DATA_AT + (long) count * SLOT_BYTES);
+
+		int tableBytes = MAX_SLOTS * HEADER_BYTES;
+		if (mapped)
+		{
+			headers = channel.map(FileChannel.MapMode.READ_WRITE, HEADERS_AT, tableBytes);
+		}
+		else
+		{
+			headers = ByteBuffer.allocate(tableBytes);
+			while (headers.hasRemaining())
+			{
+				if (channel.read(headers, HEADERS_AT + headers.position()) < 0)
+				{
+					break;
+				}
+			}
+			headers.clear();
+		}
+
+		segments = new ByteBuffer[(MAX_SLOTS + SLOTS_PER_SEGMENT - 1) / SLOTS_PER_SEGMENT];
+		Arrays.fill(writing, false);
+		slotCount = count;
+		free = new int[count];
+		freeCount = 0;
+
+		for (int slot = 0; slot < count; slot++)
+		{
+			int at = slot * HEADER_BYTES;
+			long key = headers.getLong(at);
+			if ((headers.getInt(at + 12) & FLAG_VALID) != 0 && !slots.containsKey(key))
+			{
+				slots.put(key, slot);
+				storedBytes += SLOT_BYTES;
+			}
+			else
+			{
+				free[freeCount++] = slot;
+			}
+		}
+
+		// slots past the end were cut off by a smaller budget along with their pixels
+		for (int slot = count; slot < MAX_SLOTS; slot++)
+		{
+			if ((headers.getInt(slot * HEADER_BYTES + 12) & FLAG_VALID) != 0)
+			{
+				writeHeader(slot, 0L, 0, 0, 0);
+			}
+		}
+		log.debug("Decoded tile disk cache opened with {} of {} slots in use", slots.size(), count);
+	}
+
+	private void resize(int count) throws IOException
+	{
+		if (count > slotCount)
+		{
+			// never cut the file here, slots dropped by an earlier shrink may still be mapped
+			long length = DATA_AT + (long) count * SLOT_BYTES;
+			if (file.length() < length)
+			{
+				file.setLength(length);
+			}
+			int[] grown = new int[count];
+			System.arraycopy(free, 0, grown, 0, freeCount);
+			free = grown;
+			for (int slot = count - 1; slot >= slotCount; slot--)
+			{
+				// a slot cut while being written goes back to the free list through its writer
+				if (!writing[slot])
+				{
+					free[freeCount++] = slot;
+				}
+			}
+		}
+		else
+		{
+			Iterator<Integer> it = slots.values().iterator();
+			while (it.hasNext())
+			{
+				if (it.next() >= count)
+				{
+					it.remove();
+					storedBytes -= SLOT_BYTES;
+				}
+			}
+
+			int kept = 0;
+			for (int i = 0; i < freeCount; i++)
+			{
+				if (free[i] < count)
+				{
+					free[kept++] = free[i];
+				}
+			}
+			freeCount = kept;
+		}
+		slotCount = count;
+	}
+
+	private void drop(long key, int slot)
+	{
+		if (slots.remove(key) != null)
+		{
+			storedBytes -= SLOT_BYTES;
+			free[freeCount++] = slot;
+		}
+	}
+
+	private void release(int slot)
+	{
+		if (slot >= slotCount)
+		{
+			return;
+		}
+		try
+		{
+			writeHeader(slot, 0L, 0, 0, 0);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.debug("Failed to clear cached tile slot {}", slot, e);
+		}
+		free[freeCount++] = slot;
+	}
+
+	private void writeHeader(int slot, long key, int w, int h, int flags) throws IOException
+	{
+		int at = slot * HEADER_BYTES;
+		headers.putLong(at, key);
+		headers.putShort(at + 8, (short) w);
+		headers.putShort(at + 10, (short) h);
+		headers.putInt(at + 12, flags);
+
+		if (!mapped)
+		{
+			ByteBuffer one = headers.duplicate();
+			one.limit(at + HEADER_BYTES).position(at);
+			channel.write(one, HEADERS_AT + at);
+		}
+	}
+
+	private static void readPixels(FileChannel ch, @Nullable ByteBuffer seg, int slot, int[] px) throws IOException
+	{
+		int length = px.length * 4;
+		if (seg != null)
+		{
+			slice(seg, slot, length).asIntBuffer().get(px);
+			return;
+		}
+
+		ByteBuffer buf = SCRATCH.get().io(length);
+		long pos = DATA_AT + (long) slot * SLOT_BYTES;
+		while (buf.hasRemaining())
+		{
+			if (ch.read(buf, pos + buf.position()) < 0)
+			{
+				throw new IOException("Truncated tile store");
+			}
+		}
+		buf.flip();
+		buf.asIntBuffer().get(px);
+	}
+
+	private static void writePixels(FileChannel ch, @Nullable ByteBuffer seg, int slot, BufferedImage img) throws IOException
+	{
+		Scratch s = SCRATCH.get();
+		int n = img.getWidth() * img.getHeight();
+		int[] px = s.argb(img);
+		if (seg != null)
+		{
+			slice(seg, slot, n * 4).asIntBuffer().put(px, 0, n);
+			return;
+		}
+
+		ByteBuffer buf = s.io(n * 4);
+		buf.asIntBuffer().put(px, 0, n);
+		long pos = DATA_AT + (long) slot * SLOT_BYTES;
+		while (buf.hasRemaining())
+		{
+			ch.write(buf, pos + buf.position());
+		}
+	}
+
+	private static ByteBuffer slice(ByteBuffer seg, int slot, int length)
+	{
+		ByteBuffer b = seg.duplicate();
+		int off = (slot % SLOTS_PER_SEGMENT) * SLOT_BYTES;
+		b.limit(off + length).position(off);
+		return b.slice();
+	}
+
+	private ByteBuffer segment(int slot) throws IOException
+	{
+		int index = slot / SLOTS_PER_SEGMENT;
+		ByteBuffer seg = segments[index];
+		long start = DATA_AT + (long) index * SLOTS_PER_SEGMENT * SLOT_BYTES;
+		long length = (long) SLOTS_PER_SEGMENT * SLOT_BYTES;
+		if (seg == null || seg.capacity() < (slot % SLOTS_PER_SEGMENT + 1) * SLOT_BYTES)
+		{
+			// mapped up to the end of the store at the time; remapped once it has grown
+			length = Math.min(length, channel.size() - start);
+			seg = channel.map(FileChannel.MapMode.READ_WRITE, start, length);
+			segments[index] = seg;
+		}
+		return seg;
+	}
+
+	@Nullable
+	private String readVersion()
+	{
+		File f = new File(dir, VERSION_FILE);
+		if (!f.isFile())
+		{
+			return null;
+		}
+		try
+		{
+			return new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+	}
+
+	private void writeVersion(String version)
+	{
+		try
+		{
+			Files.createDirectories(dir.toPath());
+			Files.write(new File(dir, VERSION_FILE).toPath(), version.getBytes(StandardCharsets.UTF_8));
+		}
+		catch (IOException e)
+		{
+			log.debug("Failed to stamp decoded tile disk cache", e);
+		}
+	}
+
+	private static BufferedImage wrap(int[] px, int w, int h, boolean alpha)
+	{
+		DataBufferInt db = new DataBufferInt(px, px.length);
+		WritableRaster raster = Raster.createPackedRaster(db, w, h, w, alpha ? ARGB_MASKS : RGB_MASKS, null);
+		return new BufferedImage(alpha ? ARGB : RGB, raster, false, null);
+	}
+
+	private static void deleteQuietly(File f)
+	{
+		try
+		{
+			Files.deleteIfExists(f.toPath());
+		}
+		catch (IOException ignore)
+		{
+		}
+	}
+
+	private static final class Scratch
+	{
+		private final int[] pixels = new int[SLOT_BYTES / 4];
+		private byte[] row = new byte[0];
+		private ByteBuffer io;
+
+		ByteBuffer io(int length)
+		{
+			if (io == null)
+			{
+				io = ByteBuffer.allocateDirect(SLOT_BYTES);
+			}
+			io.clear().limit(length);
+			return io;
+		}
+
+		int[] argb(BufferedImage img)
+		{
+			int w = img.getWidth();
+			int h = img.getHeight();
+			switch (img.getType())
+			{
+				case BufferedImage.TYPE_INT_RGB:
+				case BufferedImage.TYPE_INT_ARGB:
+					img.getRaster().getDataElements(0, 0, w, h, pixels);
+					break;
+				case BufferedImage.TYPE_3BYTE_BGR:
+					// data elements come back in band order, R G B, whatever the byte layout
+					WritableRaster r = img.getRaster();
+					if (row.length < w * 3)
+					{
+						row = new byte[w * 3];
+					}
+					for (int y = 0, o = 0; y < h; y++)
+					{
+						r.getDataElements(0, y, w, 1, row);
+						for (int x = 0, i = 0; x < w; x++, i += 3)
+						{
+							pixels[o++] = (row[i] & 0xFF) << 16 | (row[i + 1] & 0xFF) << 8 | (row[i + 2] & 0xFF);
+						}
+					}
+					break;
+				default:
+					img.getRGB(0, 0, w, h, pixels, 0, w);
+					break;
+			}
+			return pixels;
+		}
+	}
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.util.BitSet;
+
+final class TileIndex
+{
+	private final int[] lods;
+	private final int numLayers;
+	private final int[] tilesX;
+	private final int[] tilesY;
+	private final int[] base;
+
+	private final long[] offsets;
+	private final int[] lengths;
+	private final short[] widths;
+	private final short[] heights;
+
+	private final BitSet[] present;
+
+	private final int[] canonical;
+
+	private int count;
+	private int sharedAtBuild;
+
+	private TileIndex(int[] lods, int numLayers, int[] tilesX, int[] tilesY, int[] base, int slots)
+	{
+		this.lods = lods;
+		this.numLayers = numLayers;
+		this.tilesX = tilesX;
+		this.tilesY = tilesY;
+		this.base = base;
+		this.offsets = new long[slots];
+		this.lengths = new int[slots];
+		this.widths = new short[slots];
+		this.heights = new short[slots];
+		this.canonical = new int[slots];
+		this.present = new BitSet[lods.length * numLayers];
+		for (int level = 0; level < lods.length; level++)
+		{
+			for (int z = 0; z < numLayers; z++)
+			{
+				present[level * numLayers + z] = new BitSet(tilesX[level] * tilesY[level]);
+			}
+		}
+	}
+
+	static TileIndex build(
+		MapReader.Header header,
+		int n,
+		int[] lod,
+		int[] z,
+		int[] tx,
+		int[] ty,
+		int[] w,
+		int[] h,
+		long[] rel,
+		int[] len
+	)
+	{
+		int[] lods = header.lods.clone();
+		int numLayers = header.numLayers;
+
+		int[] tilesX = new int[lods.length];
+		int[] tilesY = new int[lods.length];
+		for (int i = 0; i < lods.length; i++)
+		{
+			int s = Math.max(1, lods[i]);
+			tilesX[i] = (header.tilesXFull + s - 1) / s;
+			tilesY[i] = (header.tilesYFull + s - 1) / s;
+		}
+
+		for (int i = 0; i < n; i++)
+		{
+			int level = levelOf(lods, lod[i]);
+			if (level < 0 || z[i] < 0 || z[i] >= numLayers || tx[i] < 0 || ty[i] < 0)
+			{
+				continue;
+			}
+			tilesX[level] = Math.max(tilesX[level], tx[i] + 1);
+			tilesY[level] = Math.max(tilesY[level], ty[i] + 1);
+		}
+
+		int[] base = new int[lods.length];
+		long slots = 0L;
+		for (int i = 0; i < lods.length; i++)
+		{
+			base[i] = (int) slots;
+			slots += (long) tilesX[i] * tilesY[i] * numLayers;
+		}
+		if (slots > Integer.MAX_VALUE)
+		{
+			throw new IllegalStateException("Map: tile grid too large: " + slots);
+		}
+
+		TileIndex idx = new TileIndex(lods, numLayers, tilesX, tilesY, base, (int) slots);
+		for (int i = 0; i < n; i++)
+		{
+			int slot = idx.slotOf(lod[i], z[i], tx[i], ty[i]);
+			if (slot < 0 || len[i] <= 0)
+			{
+				continue;
+			}
+			if (idx.lengths[slot] == 0)
+			{
+				idx.count++;
+				int level = levelOf(lods, lod[i]);
+				idx.present[level * numLayers + z[i]].set(ty[i] * tilesX[level] + tx[i]);
+			}
+			idx.offsets[slot] = rel[i];
+			idx.lengths[slot] = len[i];
+			idx.widths[slot] = (short) w[i];
+			idx.heights[slot] = (short) h[i];
+		}
+
+		idx.linkSharedPayloads();
+		return idx;
+	}
+
+	private void linkSharedPayloads()
+	{
+		int cap = Integer.highestOneBit(Math.max(16, count * 2)) << 1;
+		long[] keys = new long[cap];
+		int[] firsts = new int[cap];
+		int mask = cap - 1;
+		int shared = 0;
+
+		for (int slot = 0; slot < lengths.length; slot++)
+		{
+			canonical[slot] = slot;
+			if (lengths[slot] <= 0)
+			{
+				continue;
+			}
+
+			long key = offsets[slot] + 1L;
+			long hk = key * 0x9E3779B97F4A7C15L;
+			int i = (int) (hk ^ (hk >>> 32)) & mask;
+			while (keys[i] != 0L && (keys[i] != key || lengths[firsts[i]] != lengths[slot]))
+			{
+				i = (i + 1) & mask;
+			}
+			if (keys[i] == 0L)
+			{
+				keys[i] = key;
+				firsts[i] = slot;
+			}
+			else
+			{
+				canonical[slot] = firsts[i];
+				shared++;
+			}
+		}
+		sharedAtBuild = shared;
+	}
+
+	private static int levelOf(int[] lods, int lod)
+	{
+		for (int i = 0; i < lods.length; i++)
+		{
+			if (lods[i] == lod)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int slotOf(int lod, int z, int tx, int ty)
+	{
+		int level = levelOf(lods, lod);
+		if (level < 0 || z < 0 || z >= numLayers)
+		{
+			return -1;
+		}
+		int w = tilesX[level];
+		int h = tilesY[level];
+		if (tx < 0 || ty < 0 || tx >= w || ty >= h)
+		{
+			return -1;
+		}
+		return base[level] + (z * h + ty) * w + tx;
+	}
+
+	boolean contains(int lod, int z, int tx, int ty)
+	{
+		int level = levelOf(lods, lod);
+		if (level < 0 || z < 0 || z >= numLayers)
+		{
+			return false;
+		}
+		int w = tilesX[level];
+		if (tx < 0 || ty < 0 || tx >= w || ty >= tilesY[level])
+		{
+			return false;
+		}
+		return present[level * numLayers + z].get(ty * w + tx);
+	}
+
+	int find(int lod, int z, int tx, int ty)
+	{
+		int slot = slotOf(lod, z, tx, ty);
+		return slot >= 0 && lengths[slot] > 0 ? slot : -1;
+	}
+
+	int count()
+	{
+		return count;
+	}
+
+	int sharedAtBuild()
+	{
+		return sharedAtBuild;
+	}
+
+	int canonical(int slot)
+	{
+		return canonical[slot];
+	}
+
+	long keyOf(int slot)
+	{
+		int level = 0;
+		while (level < lods.length - 1 && slot >= base[level + 1])
+		{
+			level++;
+		}
+		int w = tilesX[level];
+		int h = tilesY[level];
+		int rem = slot - base[level];
+		int tx = rem % w;
+		int ty = (rem / w) % h;
+		int z = rem / (w * h);
+		return TileKey.pack(lods[level], z, tx, ty);
+	}
+
+	int slots()
+	{
+		return lengths.length;
+	}
+
+	long offset(int slot)
+	{
+		return offsets[slot];
+	}
+
+	int length(int slot)
+	{
+		return lengths[slot];
+	}
+
+	int width(int slot)
+	{
+		return widths[slot] & 0xFFFF;
+	}
+
+	int height(int slot)
+	{
+		return heights[slot] & 0xFFFF;
+	}
+
+	long heapBytes()
+	{
+		return (long) lengths.length * (Long.BYTES + Integer.BYTES + Short.BYTES + Short.BYTES + Integer.BYTES) + lengths.length / 8;
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+public final class TileKey
+{
+	private static final long MASK_8 = 0xFFL;
+	private static final long MASK_24 = 0xFFFFFFL;
+
+	private TileKey()
+	{
+	}
+
+	public static long pack(int lod, int plane, int tx, int ty)
+	{
+		return ((lod & MASK_8) << 56)
+			| ((plane & MASK_8) << 48)
+			| ((tx & MASK_24) << 24)
+			| (ty & MASK_24);
+	}
+
+	public static int lod(long key)
+	{
+		return (int) ((key >>> 56) & MASK_8);
+	}
+
+	public static int plane(long key)
+	{
+		return (int) ((key >>> 48) & MASK_8);
+	}
+
+	public static int tx(long key)
+	{
+		return (int) ((key >>> 24) & MASK_24);
+	}
+
+	public static int ty(long key)
+	{
+		return (int) (key & MASK_24);
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+public enum TileStorage
+{
+	FULL("Full color"),
+	RGB565("16-bit color"),
+	PALETTE("Palette where possible");
+
+	private static final int PALETTE_SIZE = 256;
+	private static final int PALETTE_SLOTS = 512;
+
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+	private final String name;
+
+	TileStorage(String name)
+	{
+		this.name = name;
+	}
+
+	@Override
+	public String toString()
+	{
+		return name;
+	}
+
+	// pixels go through the raster, never its backing array, so Java2D keeps the images managed
+	public BufferedImage pack(BufferedImage decoded, RasterPool pool)
+	{
+		if (this == FULL || decoded == null)
+		{
+			return decoded;
+		}
+
+		int w = decoded.getWidth();
+		int h = decoded.getHeight();
+		Scratch s = SCRATCH.get();
+		int[] px = s.pixels(w * h);
+		if (!readOpaque(decoded, px, w, h, s))
+		{
+			return decoded;
+		}
+
+		if (this == PALETTE)
+		{
+			BufferedImage indexed = toIndexed(px, w, h, s);
+			if (indexed != null)
+			{
+				return indexed;
+			}
+		}
+		return to565(px, w, h, s, pool);
+	}
+
+	private static boolean readOpaque(BufferedImage bi, int[] px, int w, int h, Scratch s)
+	{
+		if (bi.getType() == BufferedImage.TYPE_3BYTE_BGR)
+		{
+			// data elements come back in band order, R G B, whatever the byte layout
+			WritableRaster r = bi.getRaster();
+			byte[] row = s.bytes(w * 3);
+			for (int y = 0, o = 0; y < h; y++)
+			{
+				r.getDataElements(0, y, w, 1, row);
+				for (int x = 0, i = 0; x < w; x++, i += 3)
+				{
+					px[o++] = (row[i] & 0xFF) << 16 | (row[i + 1] & 0xFF) << 8 | (row[i + 2] & 0xFF);
+				}
+			}
+			return true;
+		}
+
+		boolean alpha = bi.getColorModel().hasAlpha();
+		for (int y = 0; y < h; y++)
+		{
+			bi.getRGB(0, y, w, 1, px, y * w, w);
+		}
+		for (int i = 0, n = w * h; i < n; i++)
+		{
+			if (alpha && (px[i] >>> 24) != 0xFF)
+			{
+				return false;
+			}
+			px[i] &= 0xFFFFFF;
+		}
+		return true;
+	}
+
+	private static BufferedImage to565(int[] px, int w, int h, Scratch s, RasterPool pool)
+	{
+		BufferedImage out = pool != null ? pool.acquire(BufferedImage.TYPE_USHORT_565_RGB, w, h) : null;
+		if (out == null)
+		{
+			out = new BufferedImage(w, h, BufferedImage.TYPE_USHORT_565_RGB);
+		}
+
+		WritableRaster r = out.getRaster();
+		short[] row = s.shorts(w);
+		for (int y = 0, o = 0; y < h; y++)
+		{
+			for (int x = 0; x < w; x++)
+			{
+				int c = px[o++];
+				row[x] = (short) ((c >> 8 & 0xF800) | (c >> 5 & 0x07E0) | (c >> 3 & 0x001F));
+			}
+			r.setDataElements(0, y, w, 1, row);
+		}
+		return out;
+	}
+
+	// leaves px untouched so the caller can fall back to it
+	private static BufferedImage toIndexed(int[] px, int w, int h, Scratch s)
+	{
+		int[] keys = s.keys;
+		byte[] slotIndex = s.slotIndex;
+		int[] palette = s.palette;
+		int n = w * h;
+		byte[] indices = s.indices(n);
+		Arrays.fill(keys, 0);
+
+		int colors = 0;
+		for (int i = 0; i < n; i++)
+		{
+			int key = px[i] | 0xFF000000;
+			int slot = (key * 0x9E3779B9) >>> 23;
+			while (keys[slot] != 0 && keys[slot] != key)
+			{
+				slot = (slot + 1) & (PALETTE_SLOTS - 1);
+			}
+			if (keys[slot] == 0)
+			{
+				if (colors == PALETTE_SIZE)
+				{
+					return null;
+				}
+				keys[slot] = key;
+				slotIndex[slot] = (byte) colors;
+				palette[colors++] = key;
+			}
+			indices[i] = slotIndex[slot];
+		}
+
+		byte[] red = new byte[colors];
+		byte[] green = new byte[colors];
+		byte[] blue = new byte[colors];
+		for (int i = 0; i < colors; i++)
+		{
+			red[i] = (byte) (palette[i] >> 16);
+			green[i] = (byte) (palette[i] >> 8);
+			blue[i] = (byte) palette[i];
+		}
+
+		BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_INDEXED,
+			new IndexColorModel(8, colors, red, green, blue));
+		WritableRaster r = out.getRaster();
+		byte[] row = s.bytes(w);
+		for (int y = 0; y < h; y++)
+		{
+			System.arraycopy(indices, y * w, row, 0, w);
+			r.setDataElements(0, y, w, 1, row);
+		}
+		return out;
+	}
+
+	private static final class Scratch
+	{
+		final int[] keys = new int[PALETTE_SLOTS];
+		final byte[] slotIndex = new byte[PALETTE_SLOTS];
+		final int[] palette = new int[PALETTE_SIZE];
+
+		private int[] pixels = new int[0];
+		private byte[] indices = new byte[0];
+		private byte[] bytes = new byte[0];
+		private short[] shorts = new short[0];
+
+		int[] pixels(int n)
+		{
+			if (pixels.length < n)
+			{
+				pixels = new int[n];
+			}
+			return pixels;
+		}
+
+		byte[] indices(int n)
+		{
+			if (indices.length < n)
+			{
+				indices = new byte[n];
+			}
+			return indices;
+		}
+
+		byte[] bytes(int n)
+		{
+			if (bytes.length < n)
+			{
+				bytes = new byte[n];
+			}
+			return bytes;
+		}
+
+		short[] shorts(int n)
+		{
+			if (shorts.length < n)
+			{
+				shorts = new short[n];
+			}
+			return shorts;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+public final class ViewportPolicy implements EvictionPolicy
+{
+	private static final double RECENCY_TICKS = 256.0;
+	private static final double NEAR_PX = 4096.0;
+
+	private static final double W_RECENCY = 0.35;
+	private static final double W_FREQUENCY = 0.25;
+	private static final double W_PROXIMITY = 0.40;
+
+	private final FrequencySketch sketch;
+	private final int regionPx;
+
+	private volatile int viewPlane = -1;
+	private volatile double viewX;
+	private volatile double viewY;
+	private volatile double viewHalfW;
+	private volatile double viewHalfH;
+
+	private volatile int playerPlane = -1;
+	private volatile double playerX;
+	private volatile double playerY;
+
+	public ViewportPolicy(int expectedEntries, int regionPx)
+	{
+		this.sketch = new FrequencySketch(expectedEntries * 8);
+		this.regionPx = regionPx;
+	}
+
+	public void setView(int plane, double centerX, double centerY, double halfW, double halfH)
+	{
+		viewPlane = plane;
+		viewX = centerX;
+		viewY = centerY;
+		viewHalfW = halfW;
+		viewHalfH = halfH;
+	}
+
+	public void setPlayer(int plane, double x, double y)
+	{
+		playerPlane = plane;
+		playerX = x;
+		playerY = y;
+	}
+
+	@Override
+	public void onAccess(long key)
+	{
+		sketch.increment(key);
+	}
+
+	@Override
+	public double retention(long key, long lastAccess, long now)
+	{
+		double recency = 1.0 / (1.0 + Math.max(0L, now - lastAccess) / RECENCY_TICKS);
+		double frequency = sketch.frequency(key) / 15.0;
+		return W_RECENCY * recency + W_FREQUENCY * frequency + W_PROXIMITY * proximity(key);
+	}
+
+	@Override
+	public boolean admit(long candidate, long victim, long victimLastAccess, long now)
+	{
+		return visible(candidate) || retention(candidate, now, now) >= retention(victim, victimLastAccess, now);
+	}
+
+	private boolean visible(long key)
+	{
+		if (TileKey.plane(key) != viewPlane)
+		{
+			return false;
+		}
+		double span = (double) regionPx * TileKey.lod(key);
+		double x1 = TileKey.tx(key) * span;
+		double y1 = TileKey.ty(key) * span;
+		return x1 < viewX + viewHalfW && x1 + span > viewX - viewHalfW
+			&& y1 < viewY + viewHalfH && y1 + span > viewY - viewHalfH;
+	}
+
+	private double proximity(long key)
+	{
+		int plane = TileKey.plane(key);
+		double span = (double) regionPx * TileKey.lod(key);
+		double cx = (TileKey.tx(key) + 0.5) * span;
+		double cy = (TileKey.ty(key) + 0.5) * span;
+
+		double d = Double.MAX_VALUE;
+		if (plane == viewPlane)
+		{
+			d = Math.min(d, Math.hypot(cx - viewX, cy - viewY));
+		}
+		if (plane == playerPlane)
+		{
+			d = Math.min(d, Math.hypot(cx - playerX, cy - playerY));
+		}
+		return d == Double.MAX_VALUE ? 0.0 : 1.0 / (1.0 + d / NEAR_PX);
+	}
+}
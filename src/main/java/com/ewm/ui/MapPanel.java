@@ -29,13 +29,21 @@ import com.ewm.ground.GroundMarkerIndex;
 import com.ewm.ground.WorldTileMarker;
 import com.ewm.io.IOUtil;
 import com.ewm.store.FileManager;
+import com.ewm.store.HeapPressureMonitor;
 import com.ewm.store.ImageCache;
 import com.ewm.store.MapReader;
+import com.ewm.store.PayloadCache;
+import com.ewm.store.PreviewCache;
+import com.ewm.store.RasterPool;
+import com.ewm.store.TileDiskCache;
+import com.ewm.store.TileKey;
+import com.ewm.store.ViewportPolicy;
 import com.google.gson.Gson;
 import java.awt.BasicStroke;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Cursor;
+import java.awt.Frame;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
@@ -52,15 +60,17 @@ import java.awt.event.MouseWheelEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 import javax.swing.ImageIcon;
 import javax.swing.JDialog;
@@ -69,7 +79,6 @@ import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
-import javax.swing.Timer;
 import javax.swing.ToolTipManager;
 import javax.swing.border.EmptyBorder;
 import lombok.extern.slf4j.Slf4j;
@@ -92,6 +101,10 @@ public class MapPanel extends JPanel
 	private static final int MAX_RX = 65;
 	private static final int MAX_RY = 196;
 
+	private static final long MIN_CACHE_BYTES = 32L * 1024L * 1024L;
+
+	private static final long PAINT_LOG_INTERVAL_NANOS = 60_000_000_000L;
+
 	private final Client client;
 	private final ExtendedWorldMapConfig cfg;
 	private final FileManager mapFiles;
@@ -101,26 +114,45 @@ public class MapPanel extends JPanel
 
 	private final GroundMarkerIndex groundMarkers = new GroundMarkerIndex();
 
+	private final ViewportPolicy cachePolicy;
+	private final RasterPool rasterPool;
 	private final ImageCache tileCache;
-	private final Set<String> inflight = ConcurrentHashMap.newKeySet();
+	private final PayloadCache payloadCache;
+	private final HeapPressureMonitor heapMonitor;
 
 	private final ExecutorService loader = Executors.newSingleThreadExecutor(r ->
 	{
-		Thread t = new Thread(r, "ExtendedWorldMap-TileLoader");
+		Thread t = new Thread(r, "ExtendedWorldMap-Loader");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final ExecutorService previewLoader = Executors.newSingleThreadExecutor(r ->
+	{
+		Thread t = new Thread(r, "ExtendedWorldMap-PreviewLoader");
 		t.setDaemon(true);
 		return t;
 	});
 
+	private volatile TileScheduler scheduler;
+	private final PerformanceStats stats;
+	private volatile ForkJoinPool previewPool;
+	private int decodeThreadCount;
+
 	private final AtomicBoolean loadStarted = new AtomicBoolean(false);
 	private final AtomicBoolean shuttingDown = new AtomicBoolean(false);
 
-	private MapReader map;
+	private volatile MapReader map;
 	private int colsFull;
 	private int rowsFull;
 	private int numPlanes = 1;
 	private int currentPlane = 0;
 
-	private BufferedImage[] previewQuarter;
+	private volatile MapPreview preview;
+	private volatile PreviewCache previewCache;
+	private volatile TileDiskCache diskCache;
+
+	private long firstFrameStart = 0L;
 	private ImageIcon hereIcon;
 
 	private boolean showPlayer = true;
@@ -142,14 +174,34 @@ public class MapPanel extends JPanel
 	private int totalW;
 	private int totalH;
 
-	private final Timer repaintTimer = new Timer(66, e ->
-	{
-		if (trackPlayer)
-		{
-			centerOnPlayer(false);
-		}
-		repaint();
-	});
+	// map layer as last rendered, shifted on pans and redrawn whole otherwise; EDT only
+	private VolatileImage viewBuffer;
+	private boolean viewBufferDirty = true;
+	private MapReader bufferMap;
+	private double bufferViewX;
+	private double bufferViewY;
+	private double bufferZoom;
+	private int bufferPlane = -1;
+
+	private int drawnLod = -1;
+	private int drawnPlane = -1;
+	private int drawnX1;
+	private int drawnY1;
+	private int drawnX2;
+	private int drawnY2;
+
+	private final TileAccelerator accelerator = new TileAccelerator();
+	private final TileDrawer tileDrawer;
+
+	private WorldPoint playerLocation;
+	private String playerName;
+	private final Rectangle playerIconRect = new Rectangle();
+
+	private int paintsLogged;
+	private long paintNanosLogged;
+	private long tileNanosLogged;
+	private long paintLogStart;
+	private long edtCpuAtLogStart;
 
 	private int mouseX = -1;
 	private int mouseY = -1;
@@ -168,7 +220,19 @@ public class MapPanel extends JPanel
 		this.configManager = configManager;
 		this.gson = gson;
 
-		this.tileCache = new ImageCache((long) cfg.cacheBudgetMB() * 1024L * 1024L);
+		long budgetBytes = cacheBudgetBytes(cfg.cacheBudgetMB());
+		int expectedTiles = (int) Math.max(256L, budgetBytes / (IMAGE_REGION_SIZE * IMAGE_REGION_SIZE * 4L));
+		this.cachePolicy = new ViewportPolicy(expectedTiles, IMAGE_REGION_SIZE);
+		this.rasterPool = new RasterPool(rasterPoolBytes(budgetBytes));
+		this.tileCache = new ImageCache(budgetBytes, cachePolicy, rasterPool);
+		this.tileDrawer = new TileDrawer(tileCache);
+		this.heapMonitor = new HeapPressureMonitor(tileCache);
+		this.payloadCache = new PayloadCache(cfg.compressedCacheMB() * 1024L * 1024L);
+		this.decodeThreadCount = decodeThreads(cfg.decodeThreads());
+		this.scheduler = createScheduler(decodeThreadCount);
+		this.stats = new PerformanceStats(tileCache, payloadCache, rasterPool, () -> scheduler, () -> map);
+		stats.register();
+		this.previewPool = createPreviewPool(decodeThreadCount);
 
 		setBackground(Color.BLACK);
 		setDoubleBuffered(true);
@@ -260,9 +324,119 @@ public class MapPanel extends JPanel
 		addMouseListener(mouse);
 		addMouseMotionListener(mouse);
 		addMouseWheelListener(mouse);
+	}
+
+	private static long cacheBudgetBytes(int configuredMb)
+	{
+		if (configuredMb > 0)
+		{
+			long bytes = configuredMb * 1024L * 1024L;
+			if (bytes < MIN_CACHE_BYTES)
+			{
+				log.debug("Cache budget of {} MB cannot hold one view, using {} MB", configuredMb, MIN_CACHE_BYTES >> 20);
+				return MIN_CACHE_BYTES;
+			}
+			return bytes;
+		}
 
-		repaintTimer.setCoalesce(true);
-		repaintTimer.start();
+		Runtime rt = Runtime.getRuntime();
+		long max = rt.maxMemory() == Long.MAX_VALUE ? rt.totalMemory() : rt.maxMemory();
+		long used = rt.totalMemory() - rt.freeMemory();
+		long headroom = Math.max(0L, max - used);
+		return Math.max(MIN_CACHE_BYTES, Math.min(max / 4L, headroom / 2L));
+	}
+
+	private static long rasterPoolBytes(long cacheBytes)
+	{
+		return Math.min(64L * 1024L * 1024L, cacheBytes / 8L);
+	}
+
+	public void updateCacheBudget()
+	{
+		long bytes = cacheBudgetBytes(cfg.cacheBudgetMB());
+		tileCache.setBudget(bytes);
+		rasterPool.setMaxBytes(rasterPoolBytes(bytes));
+		payloadCache.setBudget(cfg.compressedCacheMB() * 1024L * 1024L);
+
+		TileDiskCache disk = diskCache;
+		if (disk != null)
+		{
+			loader.execute(() -> disk.setBudget(cfg.diskCacheMB() * 1024L * 1024L));
+		}
+		log.debug("Tile cache budget set to {} MB, compressed {} MB, disk {} MB",
+			bytes / (1024L * 1024L), cfg.compressedCacheMB(), cfg.diskCacheMB());
+	}
+
+	public void updateAcceleration()
+	{
+		accelerator.update(getGraphicsConfiguration(), cfg.acceleratedTiles());
+	}
+
+	public void updateDecodeThreads()
+	{
+		int threads = decodeThreads(cfg.decodeThreads());
+		if (threads == decodeThreadCount || shuttingDown.get())
+		{
+			return;
+		}
+		decodeThreadCount = threads;
+
+		TileScheduler old = scheduler;
+		scheduler = createScheduler(threads);
+		old.shutdown();
+
+		// swapped on the preview thread so no build is using the old pool
+		previewLoader.execute(() ->
+		{
+			ForkJoinPool oldPool = previewPool;
+			previewPool = createPreviewPool(threads);
+			oldPool.shutdown();
+		});
+
+		log.debug("Tile decode threads set to {}", threads);
+		repaintMap();
+	}
+
+	@Override
+	public void addNotify()
+	{
+		super.addNotify();
+		updateAcceleration();
+	}
+
+	private void logCacheStats()
+	{
+		log.debug("Tile cache hit rate: decoded {}% of {} lookups, compressed {}% of {} ({} KB off-heap)",
+			Math.round(tileCache.hitRate() * 100), tileCache.hits() + tileCache.misses(),
+			Math.round(payloadCache.hitRate() * 100), payloadCache.hits() + payloadCache.misses(),
+			payloadCache.liveBytes() / 1024L);
+		log.debug("Raster pool reused {}% of {} decode destinations ({} KB pooled)",
+			Math.round(rasterPool.reuseRatio() * 100), rasterPool.acquires(), rasterPool.pooledBytes() / 1024L);
+	}
+
+	private static int decodeThreads(int configured)
+	{
+		return configured > 0
+			? configured
+			: Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	}
+
+	private TileScheduler createScheduler(int threads)
+	{
+		return new TileScheduler(threads, "ExtendedWorldMap-TileDecoder", this::loadTile);
+	}
+
+	private static ForkJoinPool createPreviewPool(int decodeThreads)
+	{
+		int threads = Math.max(decodeThreads, Runtime.getRuntime().availableProcessors() - 1);
+		AtomicInteger seq = new AtomicInteger();
+		return new ForkJoinPool(Math.max(1, threads), pool ->
+		{
+			ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			t.setName("ExtendedWorldMap-Preview-" + seq.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}, null, false);
 	}
 
 	private static double prefetchMarginLogical(double zoom)
@@ -324,6 +498,11 @@ public class MapPanel extends JPanel
 		repaint();
 	}
 
+	PerformanceStats getPerformanceStats()
+	{
+		return stats;
+	}
+
 	boolean isShowGrid()
 	{
 		return showGrid;
@@ -332,7 +511,7 @@ public class MapPanel extends JPanel
 	void setShowGrid(boolean b)
 	{
 		showGrid = b;
-		repaint();
+		repaintMap();
 	}
 
 	boolean isShowGroundMarkers()
@@ -355,7 +534,7 @@ public class MapPanel extends JPanel
 			reloadGroundMarkersAsync();
 		}
 
-		repaint();
+		repaintMap();
 	}
 
 	boolean isTrackPlayer()
@@ -373,6 +552,58 @@ public class MapPanel extends JPanel
 		repaint();
 	}
 
+	public void onPlayerMoved(WorldPoint wp)
+	{
+		setPlayerLocation(wp);
+		if (map == null)
+		{
+			return;
+		}
+
+		if (trackPlayer)
+		{
+			centerOnPlayer(false);
+		}
+		if (isOnScreen())
+		{
+			repaint();
+		}
+	}
+
+	private boolean isOnScreen()
+	{
+		if (!isShowing())
+		{
+			return false;
+		}
+
+		for (Window w = SwingUtilities.getWindowAncestor(this); w != null; w = w.getOwner())
+		{
+			if (w instanceof Frame && (((Frame) w).getExtendedState() & Frame.ICONIFIED) != 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean imageUpdate(Image img, int flags, int x, int y, int w, int h)
+	{
+		ImageIcon icon = hereIcon;
+		if (icon == null || img != icon.getImage())
+		{
+			return super.imageUpdate(img, flags, x, y, w, h);
+		}
+
+		Rectangle r = playerIconBounds;
+		if (r != null && (flags & (FRAMEBITS | ALLBITS)) != 0 && isOnScreen())
+		{
+			repaint(r.x, r.y, r.width, r.height);
+		}
+		return (flags & (ALLBITS | ABORT)) == 0;
+	}
+
 	int getCurrentPlane()
 	{
 		return currentPlane;
@@ -400,7 +631,7 @@ public class MapPanel extends JPanel
 
 		try
 		{
-			repaintTimer.stop();
+			ToolTipManager.sharedInstance().unregisterComponent(this);
 		}
 		catch (Throwable ignore)
 		{
@@ -408,7 +639,15 @@ public class MapPanel extends JPanel
 
 		try
 		{
-			ToolTipManager.sharedInstance().unregisterComponent(this);
+			heapMonitor.close();
+		}
+		catch (Throwable ignore)
+		{
+		}
+
+		try
+		{
+			stats.unregister();
 		}
 		catch (Throwable ignore)
 		{
@@ -424,29 +663,60 @@ public class MapPanel extends JPanel
 
 		try
 		{
-			closeMapReader();
+			scheduler.shutdown();
+		}
+		catch (Throwable ignore)
+		{
+		}
+
+		try
+		{
+			previewLoader.shutdownNow();
+		}
+		catch (Throwable ignore)
+		{
+		}
+
+		try
+		{
+			previewPool.shutdownNow();
 		}
 		catch (Throwable ignore)
 		{
 		}
 
-		synchronized (tileCache)
+		try
+		{
+			closeMapReader();
+		}
+		catch (Throwable ignore)
 		{
-			tileCache.clear();
 		}
-		inflight.clear();
+
+		tileCache.clear();
+		rasterPool.clear();
 		groundMarkers.clear();
-		previewQuarter = null;
+		preview = null;
 		hereIcon = null;
+		flushViewBuffer();
 		repaint();
 	}
 
 	private void closeMapReader()
 	{
+		TileDiskCache disk = diskCache;
+		diskCache = null;
+		if (disk != null)
+		{
+			disk.close();
+		}
+
 		MapReader m = map;
 		map = null;
 		if (m != null)
 		{
+			logCacheStats();
+			payloadCache.clear();
 			try
 			{
 				m.close();
@@ -479,7 +749,7 @@ public class MapPanel extends JPanel
 			}
 			finally
 			{
-				SwingUtilities.invokeLater(this::repaint);
+				SwingUtilities.invokeLater(this::repaintMap);
 			}
 		});
 	}
@@ -506,11 +776,13 @@ public class MapPanel extends JPanel
 			return;
 		}
 		this.currentPlane = clamped;
+		ensurePreview(clamped);
 		repaint();
 	}
 
 	private void loadMap()
 	{
+		final long openStart = System.nanoTime();
 		final Window owner = getParentWindow();
 		final LoadingDialog dlg = LoadingDialog.show(owner, "Preparing map...");
 		dlg.setIndeterminate();
@@ -518,6 +790,7 @@ public class MapPanel extends JPanel
 
 		loader.execute(() ->
 		{
+			boolean opened = false;
 			try
 			{
 				dlg.setStatusText("Checking for map updates...");
@@ -528,8 +801,8 @@ public class MapPanel extends JPanel
 
 				dlg.setStatusText("Opening map...");
 
-				map = MapReader.open(mapFiles.getMapFile());
-				numPlanes = Math.max(1, map.header().numLayers);
+				MapReader m = MapReader.open(mapFiles.getMapFile());
+				numPlanes = Math.max(1, m.header().numLayers);
 
 				minRx = MIN_RX;
 				minRy = MIN_RY;
@@ -541,21 +814,19 @@ public class MapPanel extends JPanel
 				totalW = cols * GAME_REGION_SIZE;
 				totalH = rows * GAME_REGION_SIZE;
 
-				colsFull = (int) Math.ceil((map.header().srcWidth) / (double) IMAGE_REGION_SIZE);
-				rowsFull = (int) Math.ceil((map.header().srcHeight) / (double) IMAGE_REGION_SIZE);
+				colsFull = (int) Math.ceil((m.header().srcWidth) / (double) IMAGE_REGION_SIZE);
+				rowsFull = (int) Math.ceil((m.header().srcHeight) / (double) IMAGE_REGION_SIZE);
 
-				previewQuarter = new BufferedImage[numPlanes];
-				for (int z = 0; z < numPlanes; z++)
-				{
-					previewQuarter[z] = buildPreview(LOD.QUARTER, z);
-				}
+				String version = mapFiles.getMapVersion();
+				previewCache = new PreviewCache(mapFiles.getMapDirectory(), version);
+				diskCache = new TileDiskCache(mapFiles.getMapDirectory(), version, cfg.diskCacheMB() * 1024L * 1024L);
+				preview = new MapPreview(m.header(), LOD.QUARTER.subsample, IMAGE_REGION_SIZE);
 
 				hereIcon = loadGifIcon("/extendedworldmap/You_are_here.gif");
 
-				if (configManager != null && gson != null)
-				{
-					groundMarkers.loadAllForBounds(configManager, gson, minRx, minRy, maxRx, maxRy);
-				}
+				map = m;
+				opened = true;
+				log.debug("Extended map index ready in {} ms", (System.nanoTime() - openStart) / 1_000_000L);
 			}
 			catch (Throwable t)
 			{
@@ -563,59 +834,93 @@ public class MapPanel extends JPanel
 			}
 			finally
 			{
+				final boolean ready = opened;
 				SwingUtilities.invokeLater(() ->
 				{
 					dlg.close();
+					updatePlayerFocus();
 					if (!centerOnPlayer(true))
 					{
 						zoom = clamp(1.0, MIN_ZOOM, MAX_ZOOM);
 						centerCanvas();
 					}
+					if (ready)
+					{
+						firstFrameStart = openStart;
+						ensurePreview(currentPlane);
+						reloadGroundMarkersAsync();
+					}
 					repaint();
 				});
 			}
 		});
 	}
 
-	private BufferedImage buildPreview(LOD lod, int planeZ) throws Exception
+	private void ensurePreview(int plane)
 	{
-		int subs = lod.subsample;
-		int imgW = map.header().srcWidth / subs + ((map.header().srcWidth % subs) != 0 ? 1 : 0);
-		int imgH = map.header().srcHeight / subs + ((map.header().srcHeight % subs) != 0 ? 1 : 0);
+		MapPreview pv = preview;
+		if (pv == null || shuttingDown.get() || !pv.claim(plane))
+		{
+			return;
+		}
+
+		previewLoader.execute(() ->
+		{
+			try
+			{
+				buildPreview(pv, plane);
+			}
+			catch (Throwable t)
+			{
+				log.warn("Extended map preview for plane {} failed", plane, t);
+			}
+			finally
+			{
+				SwingUtilities.invokeLater(this::repaintMap);
+			}
+		});
+	}
 
-		int tilesX = (int) Math.ceil(imgW / (double) IMAGE_REGION_SIZE);
-		int tilesY = (int) Math.ceil(imgH / (double) IMAGE_REGION_SIZE);
+	private void buildPreview(MapPreview pv, int plane) throws Exception
+	{
+		long start = System.nanoTime();
 
-		BufferedImage out = new BufferedImage(imgW, imgH, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = out.createGraphics();
+		PreviewCache cache = previewCache;
+		if (cache != null)
+		{
+			BufferedImage[] cached = cache.load(plane, pv.tilesX(), pv.tilesY());
+			if (cached != null && pv.install(plane, cached))
+			{
+				log.debug("Preview plane {} loaded from disk cache in {} ms",
+					plane, (System.nanoTime() - start) / 1_000_000L);
+				return;
+			}
+		}
 
-		for (int ty = 0; ty < tilesY; ty++)
+		pv.build(map, plane, previewPool);
+		if (cache != null)
 		{
-			for (int tx = 0; tx < tilesX; tx++)
+			BufferedImage[] grid = pv.grid(plane);
+			if (grid != null)
 			{
-				BufferedImage tile = map.readTileImage(lod.subsample, planeZ, tx, ty);
-				if (tile != null)
-				{
-					int x = tx * IMAGE_REGION_SIZE;
-					int y = ty * IMAGE_REGION_SIZE;
-					g.drawImage(tile, x, y, null);
-				}
+				cache.save(plane, grid, pv.tilesX(), pv.tilesY());
 			}
 		}
 
-		g.dispose();
-		return out;
+		log.debug("Preview plane {} built in {} ms: {} KB held, full-plane image would be {} KB",
+			plane, (System.nanoTime() - start) / 1_000_000L, pv.heapBytes(plane) / 1024L, pv.denseBytes() / 1024L);
 	}
 
 	@Override
 	protected void paintComponent(Graphics g0)
 	{
 		super.paintComponent(g0);
-		if (map == null)
+		if (map == null || getWidth() <= 0 || getHeight() <= 0)
 		{
 			return;
 		}
 
+		long paintStart = System.nanoTime();
 		playerIconBounds = null;
 		playerIconTooltip = null;
 
@@ -626,32 +931,189 @@ public class MapPanel extends JPanel
 		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
 		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-		AffineTransform old = g.getTransform();
+		focusTiles(LOD.forZoom(zoom));
+		if (!paintViewBuffer(g))
+		{
+			AffineTransform old = g.getTransform();
+			renderMap(g, viewX, viewY, getWidth() / zoom, getHeight() / zoom);
+			g.setTransform(old);
+		}
+
+		if (showGroundMarkers)
+		{
+			updateHoveredMarkerTooltip();
+		}
+		drawPlayerIcon(g);
+
+		g.dispose();
+		recordPaint(System.nanoTime() - paintStart);
+	}
+
+	private void renderMap(Graphics2D g, double ax, double ay, double aw, double ah)
+	{
 		g.scale(zoom, zoom);
 		g.translate(-viewX, -viewY);
 
-		if (previewQuarter != null && currentPlane >= 0 && currentPlane < previewQuarter.length)
+		drawPreview(g, ax, ay, aw, ah);
+		long tilesStart = System.nanoTime();
+		drawTiles(g, LOD.forZoom(zoom), ax, ay, aw, ah);
+		tileNanosLogged += System.nanoTime() - tilesStart;
+		drawGrid(g, ax, ay, aw, ah);
+
+		if (showGroundMarkers)
+		{
+			drawGroundMarkers(g, ax, ay, aw, ah);
+		}
+	}
+
+	private boolean paintViewBuffer(Graphics2D g)
+	{
+		int w = getWidth();
+		int h = getHeight();
+
+		for (int attempt = 0; attempt < 3; attempt++)
 		{
-			BufferedImage preview = previewQuarter[currentPlane];
-			if (preview != null)
+			boolean full = viewBufferDirty || bufferMap != map || zoom != bufferZoom || currentPlane != bufferPlane;
+
+			if (viewBuffer == null || viewBuffer.getWidth() != w || viewBuffer.getHeight() != h)
 			{
-				g.drawImage(preview, 0, 0, preview.getWidth(), preview.getHeight(), null);
+				flushViewBuffer();
+				viewBuffer = createVolatileImage(w, h);
+				if (viewBuffer == null)
+				{
+					return false;
+				}
+				full = true;
 			}
+
+			int state = viewBuffer.validate(getGraphicsConfiguration());
+			if (state == VolatileImage.IMAGE_INCOMPATIBLE)
+			{
+				flushViewBuffer();
+				continue;
+			}
+			if (state == VolatileImage.IMAGE_RESTORED)
+			{
+				full = true;
+			}
+
+			double shiftX = (bufferViewX - viewX) * zoom;
+			double shiftY = (bufferViewY - viewY) * zoom;
+			int dx = (int) Math.round(shiftX);
+			int dy = (int) Math.round(shiftY);
+			if (Math.abs(shiftX - dx) > 1e-6 || Math.abs(shiftY - dy) > 1e-6 || Math.abs(dx) >= w || Math.abs(dy) >= h)
+			{
+				full = true;
+			}
+
+			Graphics2D bg = viewBuffer.createGraphics();
+			try
+			{
+				bg.setRenderingHints(g.getRenderingHints());
+				if (full)
+				{
+					renderStrip(bg, 0, 0, w, h);
+				}
+				else if (dx != 0 || dy != 0)
+				{
+					bg.copyArea(0, 0, w, h, dx, dy);
+					if (dx != 0)
+					{
+						renderStrip(bg, dx > 0 ? 0 : w + dx, 0, Math.abs(dx), h);
+					}
+					if (dy != 0)
+					{
+						renderStrip(bg, 0, dy > 0 ? 0 : h + dy, w, Math.abs(dy));
+					}
+				}
+			}
+			finally
+			{
+				bg.dispose();
+			}
+
+			bufferMap = map;
+			bufferViewX = viewX;
+			bufferViewY = viewY;
+			bufferZoom = zoom;
+			bufferPlane = currentPlane;
+			viewBufferDirty = false;
+
+			if (viewBuffer.contentsLost())
+			{
+				viewBufferDirty = true;
+				continue;
+			}
+
+			g.drawImage(viewBuffer, 0, 0, null);
+			if (!viewBuffer.contentsLost())
+			{
+				return true;
+			}
+			viewBufferDirty = true;
 		}
+		return false;
+	}
 
-		drawTiles(g, LOD.forZoom(zoom));
-		drawGrid(g);
+	private void renderStrip(Graphics2D bg, int x, int y, int w, int h)
+	{
+		Graphics2D sg = (Graphics2D) bg.create(x, y, w, h);
+		try
+		{
+			sg.translate(-x, -y);
+			sg.setColor(getBackground());
+			sg.fillRect(x, y, w, h);
+			renderMap(sg, viewX + x / zoom, viewY + y / zoom, w / zoom, h / zoom);
+		}
+		finally
+		{
+			sg.dispose();
+		}
+	}
 
-		if (showGroundMarkers)
+	private void flushViewBuffer()
+	{
+		if (viewBuffer != null)
 		{
-			drawGroundMarkers(g);
-			updateHoveredMarkerTooltip();
+			viewBuffer.flush();
+			viewBuffer = null;
 		}
+		viewBufferDirty = true;
+	}
 
-		g.setTransform(old);
-		drawPlayerIcon(g);
+	private void recordPaint(long nanos)
+	{
+		long now = System.nanoTime();
+		if (paintLogStart == 0L)
+		{
+			paintLogStart = now;
+			edtCpuAtLogStart = edtCpuNanos();
+		}
 
-		g.dispose();
+		paintsLogged++;
+		paintNanosLogged += nanos;
+		if (now - paintLogStart < PAINT_LOG_INTERVAL_NANOS)
+		{
+			return;
+		}
+
+		long cpu = edtCpuNanos();
+		log.debug("Extended map painted {} times in {} s: {} ms painting, {} ms of it {} tiles, {} ms EDT CPU",
+			paintsLogged, (now - paintLogStart) / 1_000_000_000L, paintNanosLogged / 1_000_000L,
+			tileNanosLogged / 1_000_000L, accelerator.isEnabled() ? "accelerated" : "decoded",
+			cpu >= 0L && edtCpuAtLogStart >= 0L ? (cpu - edtCpuAtLogStart) / 1_000_000L : -1L);
+
+		paintsLogged = 0;
+		paintNanosLogged = 0L;
+		tileNanosLogged = 0L;
+		paintLogStart = now;
+		edtCpuAtLogStart = cpu;
+	}
+
+	private static long edtCpuNanos()
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1L;
 	}
 
 	@Override
@@ -678,134 +1140,267 @@ public class MapPanel extends JPanel
 		return null;
 	}
 
-	private void drawTiles(Graphics2D g, LOD lod)
+	private void drawPreview(Graphics2D g, double ax, double ay, double aw, double ah)
 	{
-		double vw = getWidth() / zoom;
-		double vh = getHeight() / zoom;
-		double margin = prefetchMarginLogical(zoom);
+		MapPreview pv = preview;
+		if (pv == null)
+		{
+			return;
+		}
+		if (!pv.isReady(currentPlane))
+		{
+			ensurePreview(currentPlane);
+			return;
+		}
+
+		int lod = pv.lod();
+		double tileLogical = (double) IMAGE_REGION_SIZE * lod / PIXELS_PER_GAME_TILE;
+
+		int tX1 = Math.max(0, (int) Math.floor(ax / tileLogical));
+		int tY1 = Math.max(0, (int) Math.floor(ay / tileLogical));
+		int tX2 = Math.min(pv.tilesX() - 1, (int) Math.floor((ax + aw) / tileLogical));
+		int tY2 = Math.min(pv.tilesY() - 1, (int) Math.floor((ay + ah) / tileLogical));
+
+		for (int ty = tY1; ty <= tY2; ty++)
+		{
+			for (int tx = tX1; tx <= tX2; tx++)
+			{
+				BufferedImage tile = pv.tile(currentPlane, tx, ty);
+				if (tile == null)
+				{
+					continue;
+				}
 
-		int lx1 = (int) Math.floor(viewX - margin);
-		int ly1 = (int) Math.floor(viewY - margin);
-		int lx2 = (int) Math.ceil(viewX + vw + margin);
-		int ly2 = (int) Math.ceil(viewY + vh + margin);
+				int sx1 = tx * IMAGE_REGION_SIZE;
+				int sy1 = ty * IMAGE_REGION_SIZE;
+
+				int dx1 = (sx1 * lod) / PIXELS_PER_GAME_TILE;
+				int dy1 = (sy1 * lod) / PIXELS_PER_GAME_TILE;
+				int dx2 = ((sx1 + tile.getWidth()) * lod) / PIXELS_PER_GAME_TILE;
+				int dy2 = ((sy1 + tile.getHeight()) * lod) / PIXELS_PER_GAME_TILE;
+
+				g.drawImage(tile, dx1, dy1, dx2, dy2, 0, 0, tile.getWidth(), tile.getHeight(), null);
+			}
+		}
+	}
 
-		lx1 = Math.max(0, lx1);
-		ly1 = Math.max(0, ly1);
-		lx2 = Math.min(totalW, lx2);
-		ly2 = Math.min(totalH, ly2);
+	private void focusTiles(LOD lod)
+	{
+		if (map == null)
+		{
+			return;
+		}
 
-		int fullX1 = lx1 * PIXELS_PER_GAME_TILE;
-		int fullY1 = ly1 * PIXELS_PER_GAME_TILE;
-		int fullX2 = lx2 * PIXELS_PER_GAME_TILE;
-		int fullY2 = ly2 * PIXELS_PER_GAME_TILE;
+		double vw = getWidth() / zoom;
+		double vh = getHeight() / zoom;
+		double margin = prefetchMarginLogical(zoom);
 
-		int tX1 = Math.floorDiv(fullX1, IMAGE_REGION_SIZE * lod.subsample);
-		int tY1 = Math.floorDiv(fullY1, IMAGE_REGION_SIZE * lod.subsample);
-		int tX2 = Math.floorDiv(Math.max(fullX2 - 1, 0), IMAGE_REGION_SIZE * lod.subsample);
-		int tY2 = Math.floorDiv(Math.max(fullY2 - 1, 0), IMAGE_REGION_SIZE * lod.subsample);
+		int tX1 = tileIndex(Math.max(0.0, viewX - margin), lod, false);
+		int tY1 = tileIndex(Math.max(0.0, viewY - margin), lod, false);
+		int tX2 = tileIndex(Math.min(totalW, viewX + vw + margin), lod, true);
+		int tY2 = tileIndex(Math.min(totalH, viewY + vh + margin), lod, true);
 
-		List<int[]> order = new ArrayList<>();
 		double cx = viewX + vw / 2.0;
 		double cy = viewY + vh / 2.0;
 
-		for (int ty = tY1; ty <= tY2; ty++)
+		double tilePx = (double) IMAGE_REGION_SIZE * lod.subsample / PIXELS_PER_GAME_TILE;
+		scheduler.retarget(lod.subsample, currentPlane, tX1, tY1, tX2, tY2, cx / tilePx, cy / tilePx);
+		cachePolicy.setView(currentPlane, cx * PIXELS_PER_GAME_TILE, cy * PIXELS_PER_GAME_TILE,
+			vw / 2.0 * PIXELS_PER_GAME_TILE, vh / 2.0 * PIXELS_PER_GAME_TILE);
+		tileCache.nextFrame();
+
+		int regionLogical = IMAGE_REGION_SIZE * lod.subsample / PIXELS_PER_GAME_TILE;
+		drawnLod = lod.subsample;
+		drawnPlane = currentPlane;
+		drawnX1 = (int) Math.floor(viewX / regionLogical);
+		drawnY1 = (int) Math.floor(viewY / regionLogical);
+		drawnX2 = (int) Math.floor((viewX + vw) / regionLogical);
+		drawnY2 = (int) Math.floor((viewY + vh) / regionLogical);
+	}
+
+	private static int tileIndex(double logical, LOD lod, boolean end)
+	{
+		int full = (int) (end ? Math.ceil(logical) : Math.floor(logical)) * PIXELS_PER_GAME_TILE;
+		return Math.floorDiv(end ? Math.max(full - 1, 0) : full, IMAGE_REGION_SIZE * lod.subsample);
+	}
+
+	private void drawTiles(Graphics2D g, LOD lod, double ax, double ay, double aw, double ah)
+	{
+		MapReader m = map;
+		if (m == null)
 		{
-			for (int tx = tX1; tx <= tX2; tx++)
-			{
-				order.add(new int[]{tx, ty});
-			}
+			return;
 		}
 
-		order.sort(Comparator.comparingDouble(t ->
+		double vw = getWidth() / zoom;
+		double vh = getHeight() / zoom;
+		double margin = prefetchMarginLogical(zoom);
+
+		double lx1 = Math.max(Math.max(0.0, viewX - margin), ax - margin);
+		double ly1 = Math.max(Math.max(0.0, viewY - margin), ay - margin);
+		double lx2 = Math.min(Math.min(totalW, viewX + vw + margin), ax + aw + margin);
+		double ly2 = Math.min(Math.min(totalH, viewY + vh + margin), ay + ah + margin);
+		if (lx2 <= lx1 || ly2 <= ly1)
 		{
-			int tx = t[0];
-			int ty = t[1];
+			return;
+		}
+
+		int tX1 = tileIndex(lx1, lod, false);
+		int tY1 = tileIndex(ly1, lod, false);
+		int tX2 = tileIndex(lx2, lod, true);
+		int tY2 = tileIndex(ly2, lod, true);
 
-			int px1 = (tx * IMAGE_REGION_SIZE * lod.subsample) / PIXELS_PER_GAME_TILE;
-			int py1 = (ty * IMAGE_REGION_SIZE * lod.subsample) / PIXELS_PER_GAME_TILE;
-			int px2 = ((tx * IMAGE_REGION_SIZE * lod.subsample) + IMAGE_REGION_SIZE * lod.subsample) / PIXELS_PER_GAME_TILE;
-			int py2 = ((ty * IMAGE_REGION_SIZE * lod.subsample) + IMAGE_REGION_SIZE * lod.subsample) / PIXELS_PER_GAME_TILE;
+		double tilePx = (double) IMAGE_REGION_SIZE * lod.subsample / PIXELS_PER_GAME_TILE;
+		int ctx = (int) Math.floor((viewX + vw / 2.0) / tilePx);
+		int cty = (int) Math.floor((viewY + vh / 2.0) / tilePx);
 
-			double mx = (px1 + px2) * 0.5;
-			double my = (py1 + py2) * 0.5;
-			double dx = mx - cx;
-			double dy = my - cy;
-			return dx * dx + dy * dy;
-		}));
+		TileDrawer drawer = tileDrawer;
+		drawer.begin(g, m, scheduler, lod.subsample, currentPlane, drawnX1, drawnY1, drawnX2, drawnY2);
+		TileRing.walk(tX1, tY1, tX2, tY2, ctx, cty, drawer);
+		boolean visibleComplete = drawer.end();
 
-		for (int[] t : order)
+		// a strip seeing all of its tiles says nothing about the rest of the view
+		boolean wholeView = ax <= viewX && ay <= viewY && ax + aw >= viewX + vw && ay + ah >= viewY + vh;
+		if (wholeView && visibleComplete && firstFrameStart != 0L)
 		{
-			int tx = t[0];
-			int ty = t[1];
+			log.debug("Extended map first full frame {} ms after open", (System.nanoTime() - firstFrameStart) / 1_000_000L);
+			firstFrameStart = 0L;
+		}
+	}
 
-			BufferedImage tile;
-			synchronized (tileCache)
-			{
-				tile = tileCache.get(lod.subsample, currentPlane, tx, ty);
-			}
+	private void setPlayerLocation(WorldPoint wp)
+	{
+		playerLocation = wp;
 
-			if (tile == null)
-			{
-				requestTileAsync(lod, currentPlane, tx, ty);
-				continue;
-			}
+		String rawName = null;
+		try
+		{
+			rawName = client != null && client.getLocalPlayer() != null ? client.getLocalPlayer().getName() : null;
+		}
+		catch (Throwable ignore)
+		{
+		}
+		playerName = capitalizeFirst(rawName);
+		updatePlayerFocus();
+	}
 
-			int sx1 = tx * IMAGE_REGION_SIZE;
-			int sy1 = ty * IMAGE_REGION_SIZE;
+	private WorldPoint playerLocation()
+	{
+		WorldPoint wp = playerLocation;
+		if (wp == null && client != null && client.getLocalPlayer() != null)
+		{
+			setPlayerLocation(client.getLocalPlayer().getWorldLocation());
+			wp = playerLocation;
+		}
+		return wp;
+	}
 
-			int dx1 = (sx1 * lod.subsample) / PIXELS_PER_GAME_TILE;
-			int dy1 = (sy1 * lod.subsample) / PIXELS_PER_GAME_TILE;
-			int dx2 = ((sx1 + tile.getWidth()) * lod.subsample) / PIXELS_PER_GAME_TILE;
-			int dy2 = ((sy1 + tile.getHeight()) * lod.subsample) / PIXELS_PER_GAME_TILE;
+	private void updatePlayerFocus()
+	{
+		WorldPoint wp = playerLocation;
+		if (wp == null || map == null)
+		{
+			return;
+		}
 
-			g.drawImage(tile, dx1, dy1, dx2, dy2, 0, 0, tile.getWidth(), tile.getHeight(), null);
+		int rX = wp.getX() >> 6;
+		int rY = wp.getY() >> 6;
+		if (rX < minRx || rX > maxRx || rY < minRy || rY > maxRy)
+		{
+			return;
 		}
+
+		double px = (rX - minRx) * 64.0 + (wp.getX() & 63) + 0.5;
+		double py = totalH - ((rY - minRy + 1) * 64.0) + (63 - (wp.getY() & 63)) + 0.5;
+		cachePolicy.setPlayer(wp.getPlane(), px * PIXELS_PER_GAME_TILE, py * PIXELS_PER_GAME_TILE);
 	}
 
-	private void requestTileAsync(LOD lod, int plane, int tx, int ty)
+	private void loadTile(int lod, int plane, int tx, int ty) throws Exception
 	{
-		if (map == null)
+		MapReader m = map;
+		if (m == null)
 		{
 			return;
 		}
 
-		String key = lod.subsample + ":" + plane + ":" + tx + ":" + ty;
-		if (!inflight.add(key))
+		long key = TileKey.pack(lod, plane, tx, ty);
+		if (shareIdentical(m, key, lod, plane, tx, ty))
 		{
 			return;
 		}
 
-		loader.execute(() ->
+		TileDiskCache disk = diskCache;
+		BufferedImage img = disk != null ? disk.load(lod, plane, tx, ty) : null;
+		boolean decoded = img == null;
+		if (decoded)
 		{
-			try
-			{
-				MapReader m = map;
-				if (m == null)
-				{
-					return;
-				}
+			img = m.readTileImage(lod, plane, tx, ty, payloadCache, rasterPool);
+		}
+
+		if (img != null)
+		{
+			BufferedImage stored = accelerator.isEnabled()
+				? accelerator.prepare(img, rasterPool)
+				: cfg.tileStorage().pack(img, rasterPool);
 
-				BufferedImage img = m.readTileImage(lod.subsample, plane, tx, ty);
-				if (img != null)
+			// an identical tile may have landed while this one decoded
+			boolean kept = !shareIdentical(m, key, lod, plane, tx, ty) && tileCache.put(key, stored);
+			if (kept)
+			{
+				long content = m.contentKey(lod, plane, tx, ty);
+				if (content != key)
 				{
-					synchronized (tileCache)
-					{
-						tileCache.put(lod.subsample, plane, tx, ty, img);
-					}
-					SwingUtilities.invokeLater(this::repaint);
+					tileCache.putShared(key, content);
 				}
+				SwingUtilities.invokeLater(() -> tileArrived(lod, plane, tx, ty));
 			}
-			catch (Throwable ignore)
+			if (decoded && disk != null)
 			{
+				disk.save(lod, plane, tx, ty, img);
 			}
-			finally
+			if (!kept)
 			{
-				inflight.remove(key);
+				rasterPool.release(stored);
 			}
-		});
+			if (decoded && stored != img)
+			{
+				rasterPool.release(img);
+			}
+		}
+	}
+
+	private boolean shareIdentical(MapReader m, long key, int lod, int plane, int tx, int ty)
+	{
+		long content = m.contentKey(lod, plane, tx, ty);
+		if (content == key)
+		{
+			return false;
+		}
+
+		if (!tileCache.putShared(content, key))
+		{
+			return false;
+		}
+		SwingUtilities.invokeLater(() -> tileArrived(lod, plane, tx, ty));
+		return true;
 	}
 
-	private void drawGrid(Graphics2D g)
+	private void tileArrived(int lod, int plane, int tx, int ty)
+	{
+		if (lod == drawnLod && plane == drawnPlane
+			&& tx >= drawnX1 && tx <= drawnX2 && ty >= drawnY1 && ty <= drawnY2)
+		{
+			repaintMap();
+		}
+	}
+
+	private void repaintMap()
+	{
+		viewBufferDirty = true;
+		repaint();
+	}
+
+	private void drawGrid(Graphics2D g, double ax, double ay, double aw, double ah)
 	{
 		if (!showGrid)
 		{
@@ -821,10 +1416,10 @@ public class MapPanel extends JPanel
 			g.setColor(new Color(255, 255, 255, 90));
 			g.setStroke(new BasicStroke(0));
 
-			int c0 = Math.max(0, (int) Math.floor(viewX / GAME_REGION_SIZE));
-			int r0 = Math.max(0, (int) Math.floor(viewY / GAME_REGION_SIZE));
-			int c1 = Math.min(cols, (int) Math.ceil((viewX + getWidth() / zoom) / GAME_REGION_SIZE));
-			int r1 = Math.min(rows, (int) Math.ceil((viewY + getHeight() / zoom) / GAME_REGION_SIZE));
+			int c0 = Math.max(0, (int) Math.floor(ax / GAME_REGION_SIZE));
+			int r0 = Math.max(0, (int) Math.floor(ay / GAME_REGION_SIZE));
+			int c1 = Math.min(cols, (int) Math.ceil((ax + aw) / GAME_REGION_SIZE));
+			int r1 = Math.min(rows, (int) Math.ceil((ay + ah) / GAME_REGION_SIZE));
 
 			for (int c = c0; c <= c1; c++)
 			{
@@ -843,7 +1438,7 @@ public class MapPanel extends JPanel
 		}
 	}
 
-	private void drawGroundMarkers(Graphics2D g)
+	private void drawGroundMarkers(Graphics2D g, double ax, double ay, double aw, double ah)
 	{
 		List<WorldTileMarker> markers = groundMarkers.snapshot();
 		if (markers.isEmpty())
@@ -859,13 +1454,10 @@ public class MapPanel extends JPanel
 		{
 			BasicStroke border = new BasicStroke(0f);
 
-			double vw = getWidth() / zoom;
-			double vh = getHeight() / zoom;
-
-			int vx1 = (int) Math.floor(viewX);
-			int vy1 = (int) Math.floor(viewY);
-			int vx2 = (int) Math.ceil(viewX + vw);
-			int vy2 = (int) Math.ceil(viewY + vh);
+			int vx1 = (int) Math.floor(ax);
+			int vy1 = (int) Math.floor(ay);
+			int vx2 = (int) Math.ceil(ax + aw);
+			int vy2 = (int) Math.ceil(ay + ah);
 
 			for (WorldTileMarker m : markers)
 			{
@@ -973,13 +1565,8 @@ public class MapPanel extends JPanel
 
 	private void drawPlayerIcon(Graphics2D g)
 	{
-		if (!showPlayer || hereIcon == null || client == null || client.getLocalPlayer() == null)
-		{
-			return;
-		}
-
-		WorldPoint wp = client.getLocalPlayer().getWorldLocation();
-		if (wp.getPlane() != currentPlane)
+		WorldPoint wp = showPlayer && hereIcon != null ? playerLocation() : null;
+		if (wp == null || wp.getPlane() != currentPlane)
 		{
 			return;
 		}
@@ -1022,17 +1609,9 @@ public class MapPanel extends JPanel
 		g.drawImage(raw, dx, dy, dx + dw, dy + dh, 0, 0, iw, ih, this);
 		Toolkit.getDefaultToolkit().sync();
 
-		playerIconBounds = new Rectangle(dx, dy, dw, dh);
-
-		String rawName = null;
-		try
-		{
-			rawName = client.getLocalPlayer().getName();
-		}
-		catch (Throwable ignore)
-		{
-		}
-		playerIconTooltip = capitalizeFirst(rawName);
+		playerIconRect.setBounds(dx, dy, dw, dh);
+		playerIconBounds = playerIconRect;
+		playerIconTooltip = playerName;
 	}
 
 	public void focusPlayer()
@@ -1043,13 +1622,12 @@ public class MapPanel extends JPanel
 
 	private boolean centerOnPlayer(boolean snap)
 	{
-		if (client == null || client.getLocalPlayer() == null)
+		WorldPoint wp = playerLocation();
+		if (wp == null)
 		{
 			return false;
 		}
 
-		WorldPoint wp = client.getLocalPlayer().getWorldLocation();
-
 		int rX = wp.getX() >> 6;
 		int rY = wp.getY() >> 6;
 		int tX = wp.getX() & 63;
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.ui;
+
+import com.ewm.store.MapReader;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+
+final class MapPreview
+{
+	static final long RETRY_MS = 5_000L;
+
+	private static final int STATE_EMPTY = 0;
+	private static final int STATE_BUILDING = 1;
+	private static final int STATE_READY = 2;
+	private static final int STATE_FAILED = 3;
+
+	private final int lod;
+	private final int regionPx;
+	private final int imgW;
+	private final int imgH;
+	private final int tilesX;
+	private final int tilesY;
+
+	private final AtomicReferenceArray<BufferedImage[]> planes;
+	private final AtomicIntegerArray state;
+	private final AtomicLongArray failedAt;
+
+	MapPreview(MapReader.Header header, int lod, int regionPx)
+	{
+		this.lod = lod;
+		this.regionPx = regionPx;
+
+		this.imgW = (header.srcWidth + lod - 1) / lod;
+		this.imgH = (header.srcHeight + lod - 1) / lod;
+		this.tilesX = (imgW + regionPx - 1) / regionPx;
+		this.tilesY = (imgH + regionPx - 1) / regionPx;
+
+		int numPlanes = Math.max(1, header.numLayers);
+		this.planes = new AtomicReferenceArray<>(numPlanes);
+		this.state = new AtomicIntegerArray(numPlanes);
+		this.failedAt = new AtomicLongArray(numPlanes);
+	}
+
+	int lod()
+	{
+		return lod;
+	}
+
+	int tilesX()
+	{
+		return tilesX;
+	}
+
+	int tilesY()
+	{
+		return tilesY;
+	}
+
+	boolean isReady(int plane)
+	{
+		return validPlane(plane) && state.get(plane) == STATE_READY;
+	}
+
+	boolean claim(int plane)
+	{
+		if (!validPlane(plane))
+		{
+			return false;
+		}
+		if (state.compareAndSet(plane, STATE_EMPTY, STATE_BUILDING))
+		{
+			return true;
+		}
+		return state.get(plane) == STATE_FAILED
+			&& System.currentTimeMillis() - failedAt.get(plane) >= RETRY_MS
+			&& state.compareAndSet(plane, STATE_FAILED, STATE_BUILDING);
+	}
+
+	// workers split the plane by rows and each tile owns its grid slot, so no image is shared
+	void build(MapReader map, int plane, ForkJoinPool pool) throws Exception
+	{
+		try
+		{
+			BufferedImage[] grid = new BufferedImage[tilesX * tilesY];
+			BuildRows task = new BuildRows(map, plane, grid, 0, tilesY);
+			pool.invoke(task);
+			if (task.failure != null)
+			{
+				throw task.failure;
+			}
+
+			planes.set(plane, grid);
+			state.set(plane, STATE_READY);
+		}
+		catch (Exception | Error e)
+		{
+			failedAt.set(plane, System.currentTimeMillis());
+			state.set(plane, STATE_FAILED);
+			throw e;
+		}
+	}
+
+	boolean install(int plane, BufferedImage[] grid)
+	{
+		if (grid == null || grid.length != tilesX * tilesY)
+		{
+			return false;
+		}
+		planes.set(plane, grid);
+		state.set(plane, STATE_READY);
+		return true;
+	}
+
+	@Nullable
+	BufferedImage[] grid(int plane)
+	{
+		return validPlane(plane) ? planes.get(plane) : null;
+	}
+
+	BufferedImage tile(int plane, int tx, int ty)
+	{
+		if (!validPlane(plane) || tx < 0 || ty < 0 || tx >= tilesX || ty >= tilesY)
+		{
+			return null;
+		}
+		BufferedImage[] grid = planes.get(plane);
+		return grid == null ? null : grid[ty * tilesX + tx];
+	}
+
+	long heapBytes(int plane)
+	{
+		BufferedImage[] grid = validPlane(plane) ? planes.get(plane) : null;
+		if (grid == null)
+		{
+			return 0L;
+		}
+
+		long total = 0L;
+		for (BufferedImage bi : grid)
+		{
+			if (bi != null)
+			{
+				total += (long) bi.getWidth() * bi.getHeight() * 4L;
+			}
+		}
+		return total;
+	}
+
+	long denseBytes()
+	{
+		return (long) imgW * imgH * 4L;
+	}
+
+	private boolean validPlane(int plane)
+	{
+		return plane >= 0 && plane < state.length();
+	}
+
+	private final class BuildRows extends RecursiveAction
+	{
+		private final MapReader map;
+		private final int plane;
+		private final BufferedImage[] grid;
+		private final int rowFrom;
+		private final int rowTo;
+
+		private volatile Exception failure;
+
+		BuildRows(MapReader map, int plane, BufferedImage[] grid, int rowFrom, int rowTo)
+		{
+			this.map = map;
+			this.plane = plane;
+			this.grid = grid;
+			this.rowFrom = rowFrom;
+			this.rowTo = rowTo;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (rowTo - rowFrom > 1)
+			{
+				int mid = (rowFrom + rowTo) >>> 1;
+				BuildRows top = new BuildRows(map, plane, grid, rowFrom, mid);
+				BuildRows bottom = new BuildRows(map, plane, grid, mid, rowTo);
+				invokeAll(top, bottom);
+				failure = top.failure != null ? top.failure : bottom.failure;
+				return;
+			}
+
+			for (int ty = rowFrom; ty < rowTo; ty++)
+			{
+				for (int tx = 0; tx < tilesX; tx++)
+				{
+					try
+					{
+						BufferedImage tile = map.readTileImage(lod, plane, tx, ty);
+						if (tile != null)
+						{
+							grid[ty * tilesX + tx] = toRgb(tile);
+						}
+					}
+					catch (Exception e)
+					{
+						failure = e;
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	private static BufferedImage toRgb(BufferedImage src)
+	{
+		if (src.getType() == BufferedImage.TYPE_INT_RGB)
+		{
+			return src;
+		}
+
+		BufferedImage out = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = out.createGraphics();
+		try
+		{
+			g.drawImage(src, 0, 0, null);
+		}
+		finally
+		{
+			g.dispose();
+		}
+		return out;
+	}
+}
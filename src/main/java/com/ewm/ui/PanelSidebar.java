@@ -37,6 +37,7 @@ import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 
 class PanelSidebar extends JPanel
@@ -45,6 +46,7 @@ class PanelSidebar extends JPanel
 	static final int COLLAPSED_WIDTH = 22;
 
 	private static final Color SIDEBAR_BG = new Color(30, 30, 30);
+	private static final int PERFORMANCE_REFRESH_MS = 1000;
 
 	private final MapPanel panel;
 	private final boolean showInternalToggleButtons;
@@ -52,6 +54,10 @@ class PanelSidebar extends JPanel
 	private final JPanel expandedPanel = new JPanel();
 	private final JPanel collapsedPanel = new JPanel();
 
+	private final JPanel performancePanel = new JPanel();
+	private final JLabel[] performanceLines = new JLabel[6];
+	private final Timer performanceTimer = new Timer(PERFORMANCE_REFRESH_MS, e -> refreshPerformance());
+
 	private boolean expanded = false;
 	private boolean initialized = false;
 
@@ -195,12 +201,84 @@ class PanelSidebar extends JPanel
 		floorRow.setAlignmentX(Component.LEFT_ALIGNMENT);
 
 		content.add(floorRow);
+
+		JCheckBox showPerformance = new JCheckBox("Show Performance", false);
+		showPerformance.setAlignmentX(Component.LEFT_ALIGNMENT);
+		showPerformance.addActionListener(e -> setPerformanceVisible(showPerformance.isSelected()));
+
+		performancePanel.setOpaque(false);
+		performancePanel.setLayout(new BoxLayout(performancePanel, BoxLayout.Y_AXIS));
+		performancePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+		performancePanel.setBorder(new EmptyBorder(4, 4, 0, 0));
+		for (int i = 0; i < performanceLines.length; i++)
+		{
+			JLabel line = new JLabel(" ");
+			line.setForeground(new Color(180, 180, 180));
+			line.setFont(line.getFont().deriveFont(11f));
+			line.setAlignmentX(Component.LEFT_ALIGNMENT);
+			performanceLines[i] = line;
+			performancePanel.add(line);
+		}
+		performancePanel.setVisible(false);
+		performanceTimer.setCoalesce(true);
+
+		content.add(Box.createVerticalStrut(10));
+		content.add(showPerformance);
+		content.add(performancePanel);
 		content.add(Box.createVerticalGlue());
 
 		expandedPanel.add(header, BorderLayout.NORTH);
 		expandedPanel.add(content, BorderLayout.CENTER);
 	}
 
+	private void setPerformanceVisible(boolean visible)
+	{
+		performancePanel.setVisible(visible);
+		if (visible)
+		{
+			refreshPerformance();
+			performanceTimer.start();
+		}
+		else
+		{
+			performanceTimer.stop();
+		}
+		performancePanel.revalidate();
+	}
+
+	private void refreshPerformance()
+	{
+		if (!isShowing())
+		{
+			return;
+		}
+
+		PerformanceStats st = panel.getPerformanceStats();
+		performanceLines[0].setText(String.format("Hits %.0f%%  miss %d", st.getDecodedHitRate() * 100, st.getDecodedMisses()));
+		performanceLines[1].setText(String.format("Cache %d / %d MB", st.getBytesLive() >> 20, st.getBudgetBytes() >> 20));
+		performanceLines[2].setText(String.format("%d tiles, %d evicted", st.getTilesCached(), st.getEvictions()));
+		performanceLines[3].setText(String.format("Queue %d  loading %d", st.getQueueDepth(), st.getRunning()));
+		performanceLines[4].setText(String.format("I/O %.1f ms  p95 %.1f", st.getIoMeanMicros() / 1000.0, st.getIoP95Micros() / 1000.0));
+		performanceLines[5].setText(String.format("Decode %.1f ms  p95 %.1f", st.getDecodeMeanMicros() / 1000.0, st.getDecodeP95Micros() / 1000.0));
+	}
+
+	@Override
+	public void addNotify()
+	{
+		super.addNotify();
+		if (performancePanel.isVisible())
+		{
+			performanceTimer.start();
+		}
+	}
+
+	@Override
+	public void removeNotify()
+	{
+		performanceTimer.stop();
+		super.removeNotify();
+	}
+
 	void setExpanded(boolean expanded)
 	{
 		if (initialized && this.expanded == expanded)
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.ui;
+
+import com.ewm.store.ImageCache;
+import com.ewm.store.LatencyHistogram;
+import com.ewm.store.MapReader;
+import com.ewm.store.PayloadCache;
+import com.ewm.store.RasterPool;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public final class PerformanceStats implements PerformanceStatsMBean
+{
+	private static final String OBJECT_NAME = "com.ewm:type=ExtendedWorldMap,name=TileLoader";
+
+	// guarded by the class monitor
+	private static PerformanceStats registered;
+
+	private final ImageCache tiles;
+	private final PayloadCache payloads;
+	private final RasterPool pool;
+	private final Supplier<TileScheduler> scheduler;
+	private final Supplier<MapReader> map;
+
+	PerformanceStats(ImageCache tiles, PayloadCache payloads, RasterPool pool, Supplier<TileScheduler> scheduler,
+		Supplier<MapReader> map)
+	{
+		this.tiles = tiles;
+		this.payloads = payloads;
+		this.pool = pool;
+		this.scheduler = scheduler;
+		this.map = map;
+	}
+
+	void register()
+	{
+		synchronized (PerformanceStats.class)
+		{
+			try
+			{
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				ObjectName name = new ObjectName(OBJECT_NAME);
+				if (server.isRegistered(name))
+				{
+					server.unregisterMBean(name);
+				}
+				server.registerMBean(this, name);
+				registered = this;
+			}
+			catch (JMException | RuntimeException e)
+			{
+				log.debug("Failed to register performance MBean", e);
+			}
+		}
+	}
+
+	void unregister()
+	{
+		synchronized (PerformanceStats.class)
+		{
+			if (registered != this)
+			{
+				return;
+			}
+			registered = null;
+
+			try
+			{
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				ObjectName name = new ObjectName(OBJECT_NAME);
+				if (server.isRegistered(name))
+				{
+					server.unregisterMBean(name);
+				}
+			}
+			catch (JMException | RuntimeException e)
+			{
+				log.debug("Failed to unregister performance MBean", e);
+			}
+		}
+	}
+
+	private LatencyHistogram ioTime()
+	{
+		MapReader m = map.get();
+		return m != null ? m.ioTime() : null;
+	}
+
+	private LatencyHistogram decodeTime()
+	{
+		MapReader m = map.get();
+		return m != null ? m.decodeTime() : null;
+	}
+
+	@Override
+	public long getDecodedHits()
+	{
+		return tiles.hits();
+	}
+
+	@Override
+	public long getDecodedMisses()
+	{
+		return tiles.misses();
+	}
+
+	@Override
+	public double getDecodedHitRate()
+	{
+		return tiles.hitRate();
+	}
+
+	@Override
+	public long getEvictions()
+	{
+		return tiles.evictions();
+	}
+
+	@Override
+	public int getTilesCached()
+	{
+		return tiles.size();
+	}
+
+	@Override
+	public long getBytesLive()
+	{
+		return tiles.liveBytes();
+	}
+
+	@Override
+	public long getBudgetBytes()
+	{
+		return tiles.effectiveBudget();
+	}
+
+	@Override
+	public double getCompressedHitRate()
+	{
+		return payloads.hitRate();
+	}
+
+	@Override
+	public long getCompressedBytes()
+	{
+		return payloads.liveBytes();
+	}
+
+	@Override
+	public double getPoolReuseRatio()
+	{
+		return pool.reuseRatio();
+	}
+
+	@Override
+	public int getQueueDepth()
+	{
+		return scheduler.get().queued();
+	}
+
+	@Override
+	public int getRunning()
+	{
+		return scheduler.get().running();
+	}
+
+	@Override
+	public long getSubmitted()
+	{
+		return scheduler.get().submitted();
+	}
+
+	@Override
+	public long getCancelled()
+	{
+		return scheduler.get().cancelled();
+	}
+
+	@Override
+	public long getReads()
+	{
+		LatencyHistogram h = decodeTime();
+		return h != null ? h.count() : 0L;
+	}
+
+	@Override
+	public double getIoMeanMicros()
+	{
+		LatencyHistogram h = ioTime();
+		return h != null ? h.meanMicros() : 0.0;
+	}
+
+	@Override
+	public long getIoP95Micros()
+	{
+		LatencyHistogram h = ioTime();
+		return h != null ? h.percentileMicros(0.95) : 0L;
+	}
+
+	@Override
+	public double getDecodeMeanMicros()
+	{
+		LatencyHistogram h = decodeTime();
+		return h != null ? h.meanMicros() : 0.0;
+	}
+
+	@Override
+	public long getDecodeP95Micros()
+	{
+		LatencyHistogram h = decodeTime();
+		return h != null ? h.percentileMicros(0.95) : 0L;
+	}
+}
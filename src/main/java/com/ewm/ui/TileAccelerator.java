@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.ui;
+
+import com.ewm.store.RasterPool;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+final class TileAccelerator
+{
+	private volatile GraphicsConfiguration gc;
+	private volatile boolean enabled;
+	private volatile int opaqueType;
+	private volatile int translucentType;
+
+	void update(GraphicsConfiguration config, boolean wanted)
+	{
+		boolean accelerated = wanted && probe(config);
+		if (wanted && !accelerated)
+		{
+			log.debug("Accelerated map tiles unavailable on this display, using decoded tiles");
+		}
+		else if (accelerated != enabled)
+		{
+			log.debug("Accelerated map tiles {}", accelerated ? "enabled" : "disabled");
+		}
+		if (accelerated)
+		{
+			opaqueType = config.createCompatibleImage(1, 1, Transparency.OPAQUE).getType();
+			translucentType = config.createCompatibleImage(1, 1, Transparency.TRANSLUCENT).getType();
+		}
+		gc = accelerated ? config : null;
+		enabled = accelerated;
+	}
+
+	boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	private static boolean probe(GraphicsConfiguration config)
+	{
+		if (config == null || GraphicsEnvironment.isHeadless())
+		{
+			return false;
+		}
+
+		VolatileImage test = null;
+		try
+		{
+			test = config.createCompatibleVolatileImage(16, 16);
+			return test != null && test.getCapabilities().isAccelerated();
+		}
+		catch (RuntimeException e)
+		{
+			return false;
+		}
+		finally
+		{
+			if (test != null)
+			{
+				test.flush();
+			}
+		}
+	}
+
+	BufferedImage prepare(BufferedImage tile, RasterPool pool)
+	{
+		GraphicsConfiguration config = gc;
+		if (!enabled || config == null || tile == null)
+		{
+			return tile;
+		}
+
+		int w = tile.getWidth();
+		int h = tile.getHeight();
+		boolean alpha = tile.getColorModel().hasAlpha();
+		int transparency = alpha ? Transparency.TRANSLUCENT : Transparency.OPAQUE;
+
+		BufferedImage out = pool != null ? pool.acquire(alpha ? translucentType : opaqueType, w, h) : null;
+		if (out == null)
+		{
+			out = config.createCompatibleImage(w, h, transparency);
+		}
+
+		Graphics2D g = out.createGraphics();
+		try
+		{
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(tile, 0, 0, null);
+		}
+		finally
+		{
+			g.dispose();
+		}
+		return out;
+	}
+}
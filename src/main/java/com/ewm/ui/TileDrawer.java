@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.ui;
+
+import com.ewm.store.ImageCache;
+import com.ewm.store.MapReader;
+import com.ewm.store.TileKey;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+final class TileDrawer implements TileRing.Visitor
+{
+	private static final int IMAGE_REGION_SIZE = 256;
+	private static final int PIXELS_PER_GAME_TILE = 4;
+
+	private static final int FINEST_SUBSAMPLE = 1;
+	private static final int COARSEST_SUBSAMPLE = 4;
+
+	private final ImageCache cache;
+
+	private Graphics2D g;
+	private MapReader m;
+	private TileScheduler scheduler;
+	private int subsample;
+	private int plane;
+	private int visX1;
+	private int visY1;
+	private int visX2;
+	private int visY2;
+	private boolean visibleComplete;
+
+	TileDrawer(ImageCache cache)
+	{
+		this.cache = cache;
+	}
+
+	void begin(Graphics2D g, MapReader m, TileScheduler scheduler, int subsample, int plane,
+		int visX1, int visY1, int visX2, int visY2)
+	{
+		this.g = g;
+		this.m = m;
+		this.scheduler = scheduler;
+		this.subsample = subsample;
+		this.plane = plane;
+		this.visX1 = visX1;
+		this.visY1 = visY1;
+		this.visX2 = visX2;
+		this.visY2 = visY2;
+		this.visibleComplete = true;
+	}
+
+	@Override
+	public void visit(int tx, int ty)
+	{
+		if (!m.hasTile(subsample, plane, tx, ty))
+		{
+			return;
+		}
+
+		if (!drawTile(tx, ty) && tx >= visX1 && tx <= visX2 && ty >= visY1 && ty <= visY2)
+		{
+			visibleComplete = false;
+		}
+	}
+
+	boolean end()
+	{
+		g = null;
+		m = null;
+		scheduler = null;
+		return visibleComplete;
+	}
+
+	private boolean drawTile(int tx, int ty)
+	{
+		BufferedImage tile = cache.get(subsample, plane, tx, ty);
+		if (tile == null)
+		{
+			scheduler.submit(subsample, plane, tx, ty);
+			drawFallback(tx, ty);
+			return false;
+		}
+
+		drawRegion(g, tile, subsample, tx, ty, 0, 0, tile.getWidth(), tile.getHeight());
+		return true;
+	}
+
+	// peeks so stand-ins neither count as lookups nor hold their tiles in the cache
+	private void drawFallback(int tx, int ty)
+	{
+		for (int s = subsample * 2; s <= COARSEST_SUBSAMPLE; s *= 2)
+		{
+			int k = s / subsample;
+			int ptx = tx / k;
+			int pty = ty / k;
+			BufferedImage parent = cache.peek(TileKey.pack(s, plane, ptx, pty));
+			if (parent == null)
+			{
+				continue;
+			}
+
+			int part = IMAGE_REGION_SIZE / k;
+			int sx1 = (tx - ptx * k) * part;
+			int sy1 = (ty - pty * k) * part;
+			int sx2 = Math.min(parent.getWidth(), sx1 + part);
+			int sy2 = Math.min(parent.getHeight(), sy1 + part);
+			if (sx2 > sx1 && sy2 > sy1)
+			{
+				drawRegion(g, parent, s, ptx, pty, sx1, sy1, sx2, sy2);
+			}
+			break;
+		}
+
+		for (int s = subsample / 2; s >= FINEST_SUBSAMPLE; s /= 2)
+		{
+			int k = subsample / s;
+			for (int cy = ty * k; cy < (ty + 1) * k; cy++)
+			{
+				for (int cx = tx * k; cx < (tx + 1) * k; cx++)
+				{
+					BufferedImage child = cache.peek(TileKey.pack(s, plane, cx, cy));
+					if (child != null)
+					{
+						drawRegion(g, child, s, cx, cy, 0, 0, child.getWidth(), child.getHeight());
+					}
+				}
+			}
+		}
+	}
+
+	private static void drawRegion(Graphics2D g, BufferedImage tile, int subsample, int tx, int ty,
+		int sx1, int sy1, int sx2, int sy2)
+	{
+		int ox = tx * IMAGE_REGION_SIZE;
+		int oy = ty * IMAGE_REGION_SIZE;
+
+		int dx1 = ((ox + sx1) * subsample) / PIXELS_PER_GAME_TILE;
+		int dy1 = ((oy + sy1) * subsample) / PIXELS_PER_GAME_TILE;
+		int dx2 = ((ox + sx2) * subsample) / PIXELS_PER_GAME_TILE;
+		int dy2 = ((oy + sy2) * subsample) / PIXELS_PER_GAME_TILE;
+
+		g.drawImage(tile, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
+	}
+}
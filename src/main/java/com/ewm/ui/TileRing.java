@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.ui;
+
+final class TileRing
+{
+	interface Visitor
+	{
+		void visit(int tx, int ty);
+	}
+
+	private TileRing()
+	{
+	}
+
+	static void walk(int tx1, int ty1, int tx2, int ty2, int cx, int cy, Visitor visitor)
+	{
+		if (tx2 < tx1 || ty2 < ty1)
+		{
+			return;
+		}
+
+		cx = Math.max(tx1, Math.min(tx2, cx));
+		cy = Math.max(ty1, Math.min(ty2, cy));
+		int rings = Math.max(Math.max(cx - tx1, tx2 - cx), Math.max(cy - ty1, ty2 - cy));
+
+		for (int r = 0; r <= rings; r++)
+		{
+			int ry1 = Math.max(ty1, cy - r);
+			int ry2 = Math.min(ty2, cy + r);
+			int rx2 = Math.min(tx2, cx + r);
+			for (int ty = ry1; ty <= ry2; ty++)
+			{
+				// rows strictly inside the ring only contribute its left and right columns
+				boolean edge = ty == cy - r || ty == cy + r;
+				int step = edge ? 1 : 2 * r;
+				for (int tx = edge ? Math.max(tx1, cx - r) : cx - r; tx <= rx2; tx += step)
+				{
+					if (tx >= tx1)
+					{
+						visitor.visit(tx, ty);
+					}
+				}
+			}
+		}
+	}
+}
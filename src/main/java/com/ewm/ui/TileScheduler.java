@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.ui;
+
+import com.ewm.store.TileKey;
+import java.util.Arrays;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+final class TileScheduler
+{
+	interface TileTask
+	{
+		void load(int lod, int plane, int tx, int ty) throws Exception;
+	}
+
+	private final TileTask task;
+	private final Thread[] workers;
+
+	private final Object lock = new Object();
+	private Request[] heap = new Request[256];
+	private int queued = 0;
+	private final PendingTable pending = new PendingTable();
+	private final Request[] spare = new Request[256];
+	private int spares = 0;
+
+	private int focusLod = -1;
+	private int focusPlane = -1;
+	private int focusX1;
+	private int focusY1;
+	private int focusX2;
+	private int focusY2;
+	private double focusCx;
+	private double focusCy;
+
+	private boolean closed = false;
+
+	private long submitted = 0L;
+	private long cancelled = 0L;
+
+	TileScheduler(int threads, String name, TileTask task)
+	{
+		this.task = task;
+		this.workers = new Thread[Math.max(1, threads)];
+		for (int i = 0; i < workers.length; i++)
+		{
+			Thread t = new Thread(this::runWorker, name + "-" + (i + 1));
+			t.setDaemon(true);
+			t.setPriority(Thread.NORM_PRIORITY - 1);
+			workers[i] = t;
+			t.start();
+		}
+	}
+
+	void retarget(int lod, int plane, int tx1, int ty1, int tx2, int ty2, double cx, double cy)
+	{
+		synchronized (lock)
+		{
+			boolean sameTile = Math.floor(cx) == Math.floor(focusCx) && Math.floor(cy) == Math.floor(focusCy);
+			focusCx = cx;
+			focusCy = cy;
+			if (lod == focusLod && plane == focusPlane
+				&& tx1 == focusX1 && ty1 == focusY1 && tx2 == focusX2 && ty2 == focusY2
+				&& sameTile)
+			{
+				return;
+			}
+
+			focusLod = lod;
+			focusPlane = plane;
+			focusX1 = tx1;
+			focusY1 = ty1;
+			focusX2 = tx2;
+			focusY2 = ty2;
+
+			int kept = 0;
+			for (int i = 0; i < queued; i++)
+			{
+				Request r = heap[i];
+				if (inFocus(r.lod, r.plane, r.tx, r.ty))
+				{
+					r.priority = distanceSq(r.tx, r.ty);
+					heap[kept++] = r;
+				}
+				else
+				{
+					pending.remove(r.key, r);
+					recycle(r);
+					cancelled++;
+				}
+			}
+			Arrays.fill(heap, kept, queued, null);
+			queued = kept;
+
+			for (int i = (queued >>> 1) - 1; i >= 0; i--)
+			{
+				siftDown(i);
+			}
+		}
+	}
+
+	boolean submit(int lod, int plane, int tx, int ty)
+	{
+		long key = TileKey.pack(lod, plane, tx, ty);
+		synchronized (lock)
+		{
+			if (closed || pending.get(key) != null)
+			{
+				return false;
+			}
+
+			Request r = obtain(key, lod, plane, tx, ty);
+			r.priority = inFocus(lod, plane, tx, ty) ? distanceSq(tx, ty) : Double.MAX_VALUE;
+			pending.put(key, r);
+			offer(r);
+			submitted++;
+			lock.notify();
+			return true;
+		}
+	}
+
+	int queued()
+	{
+		synchronized (lock)
+		{
+			return queued;
+		}
+	}
+
+	int running()
+	{
+		synchronized (lock)
+		{
+			return pending.size() - queued;
+		}
+	}
+
+	long submitted()
+	{
+		synchronized (lock)
+		{
+			return submitted;
+		}
+	}
+
+	long cancelled()
+	{
+		synchronized (lock)
+		{
+			return cancelled;
+		}
+	}
+
+	void shutdown()
+	{
+		synchronized (lock)
+		{
+			closed = true;
+			Arrays.fill(heap, 0, queued, null);
+			queued = 0;
+			pending.clear();
+			lock.notifyAll();
+		}
+
+		for (Thread t : workers)
+		{
+			t.interrupt();
+		}
+	}
+
+	private boolean inFocus(int lod, int plane, int tx, int ty)
+	{
+		return lod == focusLod
+			&& plane == focusPlane
+			&& tx >= focusX1 && tx <= focusX2
+			&& ty >= focusY1 && ty <= focusY2;
+	}
+
+	private double distanceSq(int tx, int ty)
+	{
+		double dx = tx + 0.5 - focusCx;
+		double dy = ty + 0.5 - focusCy;
+		return dx * dx + dy * dy;
+	}
+
+	private Request obtain(long key, int lod, int plane, int tx, int ty)
+	{
+		Request r;
+		if (spares > 0)
+		{
+			r = spare[--spares];
+			spare[spares] = null;
+		}
+		else
+		{
+			r = new Request();
+		}
+		r.key = key;
+		r.lod = lod;
+		r.plane = plane;
+		r.tx = tx;
+		r.ty = ty;
+		return r;
+	}
+
+	private void recycle(Request r)
+	{
+		if (spares < spare.length)
+		{
+			spare[spares++] = r;
+		}
+	}
+
+	private void offer(Request r)
+	{
+		if (queued == heap.length)
+		{
+			heap = Arrays.copyOf(heap, queued * 2);
+		}
+		heap[queued] = r;
+		siftUp(queued++);
+	}
+
+	private Request poll()
+	{
+		Request top = heap[0];
+		heap[0] = heap[--queued];
+		heap[queued] = null;
+		if (queued > 0)
+		{
+			siftDown(0);
+		}
+		return top;
+	}
+
+	private void siftUp(int i)
+	{
+		Request r = heap[i];
+		while (i > 0)
+		{
+			int parent = (i - 1) >>> 1;
+			if (heap[parent].priority <= r.priority)
+			{
+				break;
+			}
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = r;
+	}
+
+	private void siftDown(int i)
+	{
+		Request r = heap[i];
+		int half = queued >>> 1;
+		while (i < half)
+		{
+			int child = 2 * i + 1;
+			if (child + 1 < queued && heap[child + 1].priority < heap[child].priority)
+			{
+				child++;
+			}
+			if (r.priority <= heap[child].priority)
+			{
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = r;
+	}
+
+	private void runWorker()
+	{
+		while (true)
+		{
+			Request r;
+			synchronized (lock)
+			{
+				while (queued == 0 && !closed)
+				{
+					try
+					{
+						lock.wait();
+					}
+					catch (InterruptedException e)
+					{
+						if (closed)
+						{
+							return;
+						}
+					}
+				}
+				if (closed)
+				{
+					return;
+				}
+				r = poll();
+			}
+
+			try
+			{
+				task.load(r.lod, r.plane, r.tx, r.ty);
+			}
+			catch (Throwable t)
+			{
+				log.debug("Tile {} plane {} at {},{} failed to load", r.lod, r.plane, r.tx, r.ty, t);
+			}
+			finally
+			{
+				synchronized (lock)
+				{
+					pending.remove(r.key, r);
+					recycle(r);
+				}
+			}
+		}
+	}
+
+	private static final class Request
+	{
+		long key;
+		int lod;
+		int plane;
+		int tx;
+		int ty;
+		double priority;
+	}
+
+	// guarded by the scheduler lock
+	private static final class PendingTable
+	{
+		private long[] keys = new long[512];
+		private Request[] values = new Request[512];
+		private int size = 0;
+
+		Request get(long key)
+		{
+			int mask = keys.length - 1;
+			for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask)
+			{
+				if (keys[i] == key)
+				{
+					return values[i];
+				}
+			}
+			return null;
+		}
+
+		void put(long key, Request r)
+		{
+			if ((size + 1) * 2 > keys.length)
+			{
+				grow();
+			}
+
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			while (values[i] != null && keys[i] != key)
+			{
+				i = (i + 1) & mask;
+			}
+			if (values[i] == null)
+			{
+				size++;
+			}
+			keys[i] = key;
+			values[i] = r;
+		}
+
+		void remove(long key, Request r)
+		{
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			while (values[i] != null && keys[i] != key)
+			{
+				i = (i + 1) & mask;
+			}
+			if (values[i] != r || r == null)
+			{
+				return;
+			}
+
+			values[i] = null;
+			size--;
+
+			// pull later entries of the probe run back over the hole
+			for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask)
+			{
+				int home = slot(keys[j], mask);
+				if (((j - home) & mask) >= ((j - i) & mask))
+				{
+					keys[i] = keys[j];
+					values[i] = values[j];
+					values[j] = null;
+					i = j;
+				}
+			}
+		}
+
+		int size()
+		{
+			return size;
+		}
+
+		void clear()
+		{
+			Arrays.fill(values, null);
+			size = 0;
+		}
+
+		private void grow()
+		{
+			long[] oldKeys = keys;
+			Request[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new Request[oldValues.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++)
+			{
+				if (oldValues[i] != null)
+				{
+					put(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+
+		private static int slot(long key, int mask)
+		{
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+	}
+}
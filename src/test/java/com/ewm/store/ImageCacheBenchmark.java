@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Replays a synthetic session against each eviction policy: long pans away from the player,
+ * a jump back, and some lingering. Reports overall hit rate and the misses paid on each jump home.
+ * Usage: ImageCacheBenchmark [budget MB] [excursions]
+ */
+public class ImageCacheBenchmark
+{
+	private static final int REGION_PX = 256;
+	private static final int VIEW_W = 8;
+	private static final int VIEW_H = 6;
+	private static final int WORLD_W = 64;
+	private static final int WORLD_H = 200;
+
+	public static void main(String[] args)
+	{
+		long budget = (args.length > 0 ? Long.parseLong(args[0]) : 64L) * 1024L * 1024L;
+		int excursions = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+
+		run("LRU", new LruPolicy(), budget, excursions, false);
+		run("Viewport", new ViewportPolicy((int) (budget / (REGION_PX * REGION_PX * 4L)), REGION_PX), budget, excursions, true);
+	}
+
+	private static void run(String name, EvictionPolicy policy, long budget, int excursions, boolean viewport)
+	{
+		ImageCache cache = new ImageCache(budget, policy);
+		Random rnd = new Random(42);
+
+		int homeX = 10;
+		int homeY = 10;
+		long[] stats = new long[4];
+
+		for (int ex = 0; ex < excursions; ex++)
+		{
+			int farX = rnd.nextInt(WORLD_W - VIEW_W);
+			int farY = 60 + rnd.nextInt(WORLD_H - VIEW_H - 60);
+
+			pan(cache, policy, viewport, homeX, homeY, farX, farY, stats);
+			for (int i = 0; i < 30; i++)
+			{
+				frame(cache, policy, viewport, homeX, homeY, stats, ex > 0 && i == 0);
+			}
+		}
+
+		long total = stats[0] + stats[1];
+		System.out.printf("%-8s hits=%.1f%% misses=%d return-misses=%d (of %d)%n",
+			name, 100.0 * stats[0] / Math.max(1, total), stats[1], stats[3], stats[2]);
+	}
+
+	private static void pan(ImageCache cache, EvictionPolicy policy, boolean viewport,
+		int x0, int y0, int x1, int y1, long[] stats)
+	{
+		int steps = Math.max(Math.abs(x1 - x0), Math.abs(y1 - y0));
+		for (int s = 1; s <= steps; s++)
+		{
+			int x = x0 + (x1 - x0) * s / steps;
+			int y = y0 + (y1 - y0) * s / steps;
+			frame(cache, policy, viewport, x, y, stats, false);
+		}
+	}
+
+	private static void frame(ImageCache cache, EvictionPolicy policy, boolean viewport,
+		int vx, int vy, long[] stats, boolean measure)
+	{
+		if (viewport)
+		{
+			ViewportPolicy vp = (ViewportPolicy) policy;
+			vp.setView(0, (vx + VIEW_W / 2.0) * REGION_PX, (vy + VIEW_H / 2.0) * REGION_PX,
+				VIEW_W / 2.0 * REGION_PX, VIEW_H / 2.0 * REGION_PX);
+			vp.setPlayer(0, (10 + VIEW_W / 2.0) * REGION_PX, (10 + VIEW_H / 2.0) * REGION_PX);
+		}
+		cache.nextFrame();
+
+		for (int ty = vy; ty < vy + VIEW_H; ty++)
+		{
+			for (int tx = vx; tx < vx + VIEW_W; tx++)
+			{
+				if (cache.get(1, 0, tx, ty) != null)
+				{
+					stats[0]++;
+				}
+				else
+				{
+					stats[1]++;
+					// a fresh image per tile, as the cache charges an image shared by several keys once
+					cache.put(1, 0, tx, ty, new BufferedImage(REGION_PX, REGION_PX, BufferedImage.TYPE_INT_RGB));
+					if (measure)
+					{
+						stats[3]++;
+					}
+				}
+				if (measure)
+				{
+					stats[2]++;
+				}
+			}
+		}
+	}
+}
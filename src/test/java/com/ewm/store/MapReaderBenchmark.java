@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.runelite.client.RuneLite;
+
+/**
+ * Compares tile payload throughput of the MAPPED and CHANNEL read paths against the original
+ * seek and read under one lock on a shared RandomAccessFile.
+ * Usage: MapReaderBenchmark [atlas file] [threads] [rounds]
+ */
+public class MapReaderBenchmark
+{
+	private interface PayloadSource
+	{
+		byte[] read(int slot) throws IOException;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		File atlas = args.length > 0
+			? new File(args[0])
+			: new File(new File(RuneLite.RUNELITE_DIR, "extendedworldmap"), FileManager.MAP_FILE_NAME);
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		try (MapReader reader = MapReader.open(atlas, MapReader.ReadMode.CHANNEL);
+			RandomAccessFile raf = new RandomAccessFile(atlas, "r"))
+		{
+			TileIndex index = reader.index();
+			long dataOffset = reader.header().dataOffset;
+			measure("LOCKED", collectSlots(reader), threads, rounds, slot ->
+			{
+				byte[] buf = new byte[index.length(slot)];
+				synchronized (raf)
+				{
+					raf.seek(dataOffset + index.offset(slot));
+					raf.readFully(buf);
+				}
+				return buf;
+			});
+		}
+
+		for (MapReader.ReadMode mode : MapReader.ReadMode.values())
+		{
+			try (MapReader reader = MapReader.open(atlas, mode))
+			{
+				measure(reader.readMode().name(), collectSlots(reader), threads, rounds, reader::readPayload);
+			}
+		}
+	}
+
+	private static void measure(String name, int[] slots, int threads, int rounds, PayloadSource source) throws Exception
+	{
+		run(source, slots, 1);
+
+		for (int t : new int[]{1, threads})
+		{
+			long best = Long.MAX_VALUE;
+			long bytes = 0L;
+			for (int r = 0; r < rounds; r++)
+			{
+				long start = System.nanoTime();
+				bytes = run(source, slots, t);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+
+			System.out.printf("%-7s threads=%-2d tiles=%d best=%.1f ms (%.0f MB/s)%n",
+				name, t, slots.length, best / 1e6, (bytes / (1024.0 * 1024.0)) / (best / 1e9));
+		}
+	}
+
+	private static int[] collectSlots(MapReader reader)
+	{
+		TileIndex index = reader.index();
+		int[] out = new int[index.count()];
+		int n = 0;
+		for (int slot = 0; slot < index.slots(); slot++)
+		{
+			if (index.length(slot) > 0)
+			{
+				out[n++] = slot;
+			}
+		}
+		return out;
+	}
+
+	private static long run(PayloadSource source, int[] slots, int threads) throws Exception
+	{
+		AtomicInteger next = new AtomicInteger();
+		AtomicLong bytes = new AtomicLong();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++)
+			{
+				futures.add(pool.submit(() ->
+				{
+					int i;
+					while ((i = next.getAndIncrement()) < slots.length)
+					{
+						bytes.addAndGet(source.read(slots[i]).length);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> f : futures)
+			{
+				f.get();
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		return bytes.get();
+	}
+}
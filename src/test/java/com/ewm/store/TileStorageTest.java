@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.store;
+
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TileStorageTest
+{
+	private static final int SIZE = 64;
+
+	private static BufferedImage tile(int colors)
+	{
+		BufferedImage bi = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < SIZE; y++)
+		{
+			for (int x = 0; x < SIZE; x++)
+			{
+				int c = (y * SIZE + x) % colors;
+				bi.setRGB(x, y, c * 0x10307 & 0xFFFFFF);
+			}
+		}
+		return bi;
+	}
+
+	@Test
+	public void paletteKeepsFewColorsExact()
+	{
+		BufferedImage src = tile(200);
+		BufferedImage packed = TileStorage.PALETTE.pack(src, null);
+
+		assertEquals(BufferedImage.TYPE_BYTE_INDEXED, packed.getType());
+		for (int y = 0; y < SIZE; y++)
+		{
+			for (int x = 0; x < SIZE; x++)
+			{
+				assertEquals(src.getRGB(x, y), packed.getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void paletteFallsBackToSourcePixels()
+	{
+		BufferedImage src = tile(SIZE * SIZE);
+		BufferedImage packed = TileStorage.PALETTE.pack(src, null);
+
+		assertNotEquals(BufferedImage.TYPE_BYTE_INDEXED, packed.getType());
+		for (int y = 0; y < SIZE; y++)
+		{
+			for (int x = 0; x < SIZE; x++)
+			{
+				// 565 keeps the top 5, 6 and 5 bits of each channel
+				assertEquals("pixel " + x + "," + y, src.getRGB(x, y) & 0xF8FCF8, packed.getRGB(x, y) & 0xF8FCF8);
+			}
+		}
+	}
+}
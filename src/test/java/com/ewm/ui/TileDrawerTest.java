@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.ui;
+
+import com.ewm.store.ImageCache;
+import com.ewm.store.MapReader;
+import com.sun.management.ThreadMXBean;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.CountDownLatch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class TileDrawerTest
+{
+	private static final int TILES_X = 16;
+	private static final int TILES_Y = 12;
+	private static final int[] LODS = {1, 2, 4};
+
+	/**
+	 * Column of full detail tiles left out of the cache, so every frame also queues them and
+	 * draws their fallbacks.
+	 */
+	private static final int MISSING_TX = 5;
+
+	/**
+	 * Allowance for JIT and TLAB bookkeeping. A list of tile coordinates per frame, or a request
+	 * per missing tile, costs several times this.
+	 */
+	private static final long MAX_BYTES_PER_FRAME = 64L;
+
+	private File atlas;
+	private MapReader map;
+	private ImageCache cache;
+	private TileScheduler scheduler;
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Before
+	public void setUp() throws IOException
+	{
+		atlas = File.createTempFile("atlas", ".bin");
+		writeAtlas(atlas);
+		map = MapReader.open(atlas);
+
+		cache = new ImageCache(Long.MAX_VALUE);
+		BufferedImage tile = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+		for (int ty = 0; ty < TILES_Y; ty++)
+		{
+			for (int tx = 0; tx < TILES_X; tx++)
+			{
+				if (tx != MISSING_TX)
+				{
+					cache.put(1, 0, tx, ty, tile);
+				}
+				cache.put(2, 0, tx / 2, ty / 2, tile);
+			}
+		}
+
+		// loads never finish, so missing tiles stay in flight like a slow decode
+		scheduler = new TileScheduler(1, "TileDrawerTest", (lod, plane, tx, ty) -> release.await());
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		release.countDown();
+		scheduler.shutdown();
+		map.close();
+		atlas.delete();
+	}
+
+	@Test
+	public void steadyFrameDoesNotAllocate()
+	{
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+		BufferedImage canvas = new BufferedImage(TILES_X * 64, TILES_Y * 64, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = canvas.createGraphics();
+		TileDrawer drawer = new TileDrawer(cache);
+		try
+		{
+			assertFalse(frame(g, drawer, 0));
+			for (int i = 1; i < 3_000; i++)
+			{
+				frame(g, drawer, i);
+			}
+
+			long id = Thread.currentThread().getId();
+			int frames = 1_000;
+			long before = threads.getThreadAllocatedBytes(id);
+			for (int i = 0; i < frames; i++)
+			{
+				frame(g, drawer, i);
+			}
+			long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+			assertTrue("allocated " + allocated + " bytes over " + frames + " frames",
+				allocated <= MAX_BYTES_PER_FRAME * frames);
+		}
+		finally
+		{
+			g.dispose();
+		}
+	}
+
+	/**
+	 * One paint of the tile layer as drawTiles does it, the center moving a little every frame.
+	 */
+	private boolean frame(Graphics2D g, TileDrawer drawer, int i)
+	{
+		cache.nextFrame();
+		drawer.begin(g, map, scheduler, 1, 0, 0, 0, TILES_X - 1, TILES_Y - 1);
+		TileRing.walk(0, 0, TILES_X - 1, TILES_Y - 1, i % TILES_X, i % TILES_Y, drawer);
+		return drawer.end();
+	}
+
+	/**
+	 * Minimal atlas holding every tile of every LOD, all pointing at one placeholder payload.
+	 */
+	private static void writeAtlas(File file) throws IOException
+	{
+		int entries = 0;
+		for (int lod : LODS)
+		{
+			entries += ((TILES_X + lod - 1) / lod) * ((TILES_Y + lod - 1) / lod);
+		}
+
+		int headerBytes = 8 + 5 * 4 + LODS.length * 4 + 3 * 4 + 2 * 8;
+		long indexOffset = headerBytes;
+		long dataOffset = indexOffset + entries * 36L;
+
+		ByteBuffer buf = ByteBuffer.allocate((int) dataOffset + 1).order(ByteOrder.LITTLE_ENDIAN);
+		buf.put(new byte[]{'A', 'T', 'L', 'S', 'v', '1', 0, 0});
+		buf.putInt(2);
+		buf.putInt(TILES_X * 256);
+		buf.putInt(TILES_Y * 256);
+		buf.putInt(256);
+		buf.putInt(LODS.length);
+		for (int lod : LODS)
+		{
+			buf.putInt(lod);
+		}
+		buf.putInt(TILES_X);
+		buf.putInt(TILES_Y);
+		buf.putInt(1);
+		buf.putLong(indexOffset);
+		buf.putLong(dataOffset);
+
+		for (int lod : LODS)
+		{
+			for (int ty = 0; ty < (TILES_Y + lod - 1) / lod; ty++)
+			{
+				for (int tx = 0; tx < (TILES_X + lod - 1) / lod; tx++)
+				{
+					buf.putInt(lod).putInt(0).putInt(tx).putInt(ty).putInt(256).putInt(256);
+					buf.putLong(0L).putInt(1);
+				}
+			}
+		}
+		buf.put((byte) 0);
+
+		try (FileOutputStream out = new FileOutputStream(file))
+		{
+			out.write(buf.array());
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026, Xeon <https://github.com/Avexiis>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ewm.ui;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TileRingTest
+{
+	private static final class Recorder implements TileRing.Visitor
+	{
+		private final int[][] seen;
+		private final int x0;
+		private final int y0;
+		private int count;
+		private int lastRing;
+		private boolean ordered = true;
+		private int cx;
+		private int cy;
+
+		Recorder(int x0, int y0, int w, int h)
+		{
+			this.x0 = x0;
+			this.y0 = y0;
+			this.seen = new int[h][w];
+		}
+
+		void center(int cx, int cy)
+		{
+			this.cx = cx;
+			this.cy = cy;
+		}
+
+		@Override
+		public void visit(int tx, int ty)
+		{
+			seen[ty - y0][tx - x0]++;
+			count++;
+
+			int ring = Math.max(Math.abs(tx - cx), Math.abs(ty - cy));
+			if (ring < lastRing)
+			{
+				ordered = false;
+			}
+			lastRing = ring;
+		}
+	}
+
+	private static final class Counter implements TileRing.Visitor
+	{
+		private long sum;
+
+		@Override
+		public void visit(int tx, int ty)
+		{
+			sum += tx * 31L + ty;
+		}
+	}
+
+	@Test
+	public void visitsEveryTileOnceCenterOut()
+	{
+		for (int w = 1; w <= 7; w++)
+		{
+			for (int h = 1; h <= 7; h++)
+			{
+				for (int cx = 3; cx < 3 + w; cx++)
+				{
+					for (int cy = 5; cy < 5 + h; cy++)
+					{
+						Recorder r = new Recorder(3, 5, w, h);
+						r.center(cx, cy);
+						TileRing.walk(3, 5, 3 + w - 1, 5 + h - 1, cx, cy, r);
+
+						assertEquals(w * h, r.count);
+						for (int[] row : r.seen)
+						{
+							for (int n : row)
+							{
+								assertEquals(1, n);
+							}
+						}
+						assertTrue(r.ordered);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void clampsCenterIntoRange()
+	{
+		Recorder r = new Recorder(0, 0, 4, 3);
+		r.center(3, 0);
+		TileRing.walk(0, 0, 3, 2, 40, -9, r);
+		assertEquals(12, r.count);
+		assertTrue(r.ordered);
+	}
+
+	@Test
+	public void emptyRangeVisitsNothing()
+	{
+		Counter c = new Counter();
+		TileRing.walk(5, 5, 4, 9, 5, 5, c);
+		assertEquals(0L, c.sum);
+	}
+}